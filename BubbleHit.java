@@ -0,0 +1,103 @@
+import java.awt.Color;
+
+/**
+ * Contains code for a bubble hit, one bubble found by a spatial query,
+ *      along with where it sits in the fractal's tree
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public class BubbleHit {
+
+    /** the level of the bubble, 0 being the center bubble */
+    private final int level;
+    /** the index of the bubble within its level */
+    private final int index;
+    /** the number of children a parent has */
+    private final int childCount;
+    /** x coordinate of the bubble, using cartesian system */
+    private final double xCoord;
+    /** y coordinate of the bubble, using cartesian system */
+    private final double yCoord;
+    /** radius of the bubble */
+    private final double radius;
+    /** the color of the bubble */
+    private final Color color;
+
+    /**
+     * Constructor for a bubble hit
+     * @param level         the level of the bubble, 0 being the center bubble
+     * @param index         the index of the bubble within its level
+     * @param childCount    the number of children a parent has
+     * @param xCoord        x coordinate of the bubble, using cartesian system
+     * @param yCoord        y coordinate of the bubble, using cartesian system
+     * @param radius        radius of the bubble
+     * @param color         the color of the bubble
+     */
+    public BubbleHit(int level, int index, int childCount, double xCoord, double yCoord, double radius, Color color) {
+        this.level = level;
+        this.index = index;
+        this.childCount = childCount;
+        this.xCoord = xCoord;
+        this.yCoord = yCoord;
+        this.radius = radius;
+        this.color = color;
+    }
+
+    /**
+     * @return  the level of the bubble, 0 being the center bubble
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return  the index of the bubble within its level
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the path from the center bubble to this one; a bubble's index within its level
+     *      is its path read as a number with one digit per level, in base childCount
+     * @return  which child is taken at each level, starting from the center bubble's children;
+     *      empty for the center bubble itself
+     */
+    public int[] getPath() {
+        int[] path = new int[level];
+        int remaining = index;
+        for (int step = level - 1; step >= 0; step--) {
+            path[step] = remaining % childCount;
+            remaining /= childCount;
+        }
+        return path;
+    }
+
+    /**
+     * @return  x coordinate of the bubble, using cartesian system
+     */
+    public double getX() {
+        return xCoord;
+    }
+
+    /**
+     * @return  y coordinate of the bubble, using cartesian system
+     */
+    public double getY() {
+        return yCoord;
+    }
+
+    /**
+     * @return  radius of the bubble
+     */
+    public double getRadius() {
+        return radius;
+    }
+
+    /**
+     * @return  the color of the bubble
+     */
+    public Color getColor() {
+        return color;
+    }
+}
@@ -0,0 +1,232 @@
+import java.awt.geom.Rectangle2D;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Predicate;
+
+/**
+ * Contains code for a spatial index over a fractal's geometry, a hierarchy of bounding circles
+ *      following the fractal's own tree; every bubble stores how far its subtree reaches from its center,
+ *      worked out from the deepest level up, so a query only descends into subtrees that can reach it;
+ *      the bubbles themselves stay in the geometry, and the index only adds one float per bubble with children,
+ *      as a bubble on the deepest level reaches no further than its own radius
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public class BubbleIndex {
+
+    /** the reach of a slot with no bubble in it, which no query can be inside */
+    private static final float ABSENT = -1;
+    /** levels with fewer bubbles than this are indexed serially rather than split into tasks */
+    private static final int SERIAL_THRESHOLD = 1 << 14;
+
+    /** the geometry being indexed */
+    private final FractalGeometry geometry;
+    /**
+     * how far each bubble's subtree reaches from its center, per level but the deepest, rounded up;
+     *      ABSENT for a pruned slot
+     */
+    private final float[][] reaches;
+
+    /**
+     * Constructor for a bubble index, indexing every bubble in a geometry
+     * @param geometry  the geometry to index
+     */
+    public BubbleIndex(FractalGeometry geometry) {
+        this.geometry = geometry;
+        reaches = new float[Math.max(geometry.getDepth() - 1, 0)][];
+        for (int level = reaches.length - 1; level >= 0; level--) {
+            reaches[level] = new float[geometry.getLevelSize(level)];
+            ForkJoinPool.commonPool().invoke(new ReachTask(level, 0, reaches[level].length));
+        }
+    }
+
+    /**
+     * Private constructor for an index sharing another's reaches, for the same bubbles recolored
+     * @param geometry  the recolored geometry to index
+     * @param index     the index whose reaches are shared
+     */
+    private BubbleIndex(FractalGeometry geometry, BubbleIndex index) {
+        this.geometry = geometry;
+        reaches = index.reaches;
+    }
+
+    /**
+     * Returns this index for the same bubbles recolored; the reaches are shared, not worked out again
+     * @param recolored a geometry with the same bubbles as the indexed one
+     * @return  an index of the recolored geometry
+     */
+    BubbleIndex withGeometry(FractalGeometry recolored) {
+        return new BubbleIndex(recolored, this);
+    }
+
+    /**
+     * Finds the bubble drawn on top at a point, the last one drawn that contains it
+     * @param xCoord    x coordinate of the point, using cartesian system
+     * @param yCoord    y coordinate of the point, using cartesian system
+     * @return  the topmost bubble at the point, or null if there is none
+     */
+    public BubbleHit find(double xCoord, double yCoord) {
+        return geometry.getDepth() == 0 ? null : find(xCoord, yCoord, 0, 0);
+    }
+
+    /**
+     * Private recursive method to find;
+     *      searches a subtree backwards from the order it is drawn in, children last to first
+     *      and each child's subtree before the bubble itself, so the first bubble found is the topmost
+     * @param xCoord    x coordinate of the point, using cartesian system
+     * @param yCoord    y coordinate of the point, using cartesian system
+     * @param level     the level of the subtree's root
+     * @param index     the index of the subtree's root within its level
+     * @return  the topmost bubble of the subtree at the point, or null if there is none
+     */
+    private BubbleHit find(double xCoord, double yCoord, int level, int index) {
+        double reach = reach(level, index);
+        double dx = xCoord - geometry.getX(level, index);
+        double dy = yCoord - geometry.getY(level, index);
+        double distanceSquared = dx * dx + dy * dy;
+        if (reach == ABSENT || distanceSquared > reach * reach) {
+            return null;
+        }
+
+        if (level + 1 < geometry.getDepth()) {
+            int childCount = geometry.getChildCount();
+            for (int child = childCount - 1; child >= 0; child--) {
+                BubbleHit hit = find(xCoord, yCoord, level + 1, index * childCount + child);
+                if (hit != null) {
+                    return hit;
+                }
+            }
+        }
+        double radius = geometry.getRadius(level, index);
+        return distanceSquared <= radius * radius ? hit(level, index) : null;
+    }
+
+    /**
+     * Hands every bubble touching a region to the hits, in the order they are drawn,
+     *      until it returns false
+     * @param region    the region to search, using cartesian system
+     * @param hits      handed each bubble found, returns false to stop the search
+     * @return  true if every bubble in the region was handed over, false if the search was stopped
+     */
+    public boolean findAll(Rectangle2D region, Predicate<BubbleHit> hits) {
+        return geometry.getDepth() == 0 || findAll(region, hits, 0, 0);
+    }
+
+    /**
+     * Private recursive method to findAll;
+     *      searches a subtree in the order it is drawn in, the bubble then each child's subtree
+     * @param region    the region to search, using cartesian system
+     * @param hits      handed each bubble found, returns false to stop the search
+     * @param level     the level of the subtree's root
+     * @param index     the index of the subtree's root within its level
+     * @return  true if the search should continue, false if it was stopped
+     */
+    private boolean findAll(Rectangle2D region, Predicate<BubbleHit> hits, int level, int index) {
+        double reach = reach(level, index);
+        double xCoord = geometry.getX(level, index);
+        double yCoord = geometry.getY(level, index);
+        if (reach == ABSENT || !FractalGenerator.intersects(region, xCoord, yCoord, reach)) {
+            return true;
+        }
+        if (FractalGenerator.intersects(region, xCoord, yCoord, geometry.getRadius(level, index))
+                && !hits.test(hit(level, index))) {
+            return false;
+        }
+
+        if (level + 1 < geometry.getDepth()) {
+            int childCount = geometry.getChildCount();
+            for (int child = 0; child < childCount; child++) {
+                if (!findAll(region, hits, level + 1, index * childCount + child)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns how far a bubble's subtree reaches from its center
+     * @param level the level of the bubble
+     * @param index the index of the bubble within its level
+     * @return  the reach of the bubble, its radius on the deepest level; negative for a pruned slot
+     */
+    double reach(int level, int index) {
+        if (level < reaches.length) {
+            return reaches[level][index];
+        }
+        return geometry.isPresent(level, index) ? geometry.getRadius(level, index) : ABSENT;
+    }
+
+    /**
+     * Returns a bubble of the geometry as a hit
+     * @param level the level of the bubble
+     * @param index the index of the bubble within its level
+     * @return  the bubble and where it sits in the tree
+     */
+    private BubbleHit hit(int level, int index) {
+        return new BubbleHit(level, index, geometry.getChildCount(), geometry.getX(level, index),
+                             geometry.getY(level, index), geometry.getRadius(level, index),
+                             geometry.getColor(level, index));
+    }
+
+    /**
+     * Contains the code for working out the reaches of a range of bubbles on one level as a fork/join task,
+     *      from the reaches of their children on the level below;
+     *      large ranges are split in half, small ones are worked out serially
+     */
+    private class ReachTask extends RecursiveAction {
+
+        /** the level of the bubbles */
+        private final int level;
+        /** the index of the first bubble */
+        private final int from;
+        /** one past the index of the last bubble */
+        private final int to;
+
+        /**
+         * Constructor for a reach task
+         * @param level the level of the bubbles
+         * @param from  the index of the first bubble
+         * @param to    one past the index of the last bubble
+         */
+        ReachTask(int level, int from, int to) {
+            this.level = level;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * @inheritdoc
+         */
+        @Override
+        protected void compute() {
+            if (to - from > SERIAL_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ReachTask(level, from, middle), new ReachTask(level, middle, to));
+                return;
+            }
+
+            int childCount = geometry.getChildCount();
+            for (int index = from; index < to; index++) {
+                if (!geometry.isPresent(level, index)) {
+                    reaches[level][index] = ABSENT;
+                    continue;
+                }
+                double xCoord = geometry.getX(level, index);
+                double yCoord = geometry.getY(level, index);
+                double reach = geometry.getRadius(level, index);
+                for (int child = 0; child < childCount; child++) {
+                    int childIndex = index * childCount + child;
+                    double childReach = reach(level + 1, childIndex);
+                    if (childReach != ABSENT) {
+                        double dx = geometry.getX(level + 1, childIndex) - xCoord;
+                        double dy = geometry.getY(level + 1, childIndex) - yCoord;
+                        reach = Math.max(reach, childReach + Math.sqrt(dx * dx + dy * dy));
+                    }
+                }
+                //rounded up, so the reach still holds the whole subtree after losing precision
+                reaches[level][index] = Math.nextUp((float) reach);
+            }
+        }
+    }
+}
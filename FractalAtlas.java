@@ -0,0 +1,355 @@
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.ImageIO;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+
+/**
+ * Contains the code for a fractal atlas, a memory-mapped file holding the drawing of every fractal
+ *      the FractalGui sliders can choose, drawn ahead of time for one color setting,
+ *      so moving a slider only has to look an image up rather than generate and draw it;
+ *      the file is a header, then an index of where each image is, then the images as PNGs;
+ *      an image's place in the index is worked out from its slider positions alone
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public class FractalAtlas {
+
+    /** the first four bytes of every atlas file, "FATL" */
+    private static final int MAGIC = 0x4641544C;
+    /** the version of the file format, bumped whenever the layout changes */
+    private static final int FORMAT_VERSION = 1;
+    /** the number of bytes before the index */
+    private static final int HEADER_BYTES = 64;
+    /** the number of bytes in an index entry, a power of two so offsets stay aligned */
+    private static final int INDEX_ENTRY_BYTES = 16;
+    /** log2 of the bytes mapped at a time; no image crosses from one mapping into the next */
+    private static final int SEGMENT_SHIFT = 30;
+
+    /** the number of recursion depths the slider can choose */
+    private static final int DEPTH_STOPS = FractalGui.MAX_RECURSE_DEPTH - FractalGui.MIN_RECURSE_DEPTH + 1;
+    /** the number of child ratios the slider can choose */
+    private static final int RATIO_STOPS = (FractalGui.MAX_CHILD_RATIO - FractalGui.MIN_CHILD_RATIO)
+                                           / FractalGui.CHILD_RATIO_STEP + 1;
+    /** the number of child counts the slider can choose */
+    private static final int COUNT_STOPS = FractalGui.MAX_CHILD_COUNT - FractalGui.MIN_CHILD_COUNT + 1;
+    /** the number of bedlam levels the slider can choose */
+    private static final int BEDLAM_STOPS = FractalGui.MAX_BEDLAM_LEVEL + 1;
+    /** the number of images in an atlas, one per combination of slider positions */
+    public static final int ENTRY_COUNT = DEPTH_STOPS * RATIO_STOPS * COUNT_STOPS * BEDLAM_STOPS;
+
+    //header layout
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int WIDTH_OFFSET = 8;
+    private static final int HEIGHT_OFFSET = 12;
+    private static final int ENTRY_COUNT_OFFSET = 16;
+    private static final int COLOR_OFFSET = 20;
+    private static final int PASTELS_OFFSET = 24;
+    private static final int COMPLETE_OFFSET = 28;
+    private static final int SEED_OFFSET = 32;
+
+    //index entry layout
+    private static final int IMAGE_OFFSET = 0;
+    private static final int LENGTH_OFFSET = 8;
+
+    /** the color every image was drawn with, unless random pastels were */
+    private final Color color;
+    /** whether every image was drawn with random pastels */
+    private final boolean hasRandomPastels;
+    /** the seed every image was drawn with */
+    private final long seed;
+    /** the header and index, mapped on their own */
+    private final MappedByteBuffer index;
+    /** the whole file, mapped 2^SEGMENT_SHIFT bytes at a time */
+    private final MappedByteBuffer[] segments;
+
+    /**
+     * Private constructor for an atlas whose mappings are already made
+     * @param index     the header and index, mapped on their own
+     * @param segments  the whole file, mapped 2^SEGMENT_SHIFT bytes at a time
+     */
+    private FractalAtlas(MappedByteBuffer index, MappedByteBuffer[] segments) {
+        this.index = index;
+        this.segments = segments;
+        color = new Color(index.getInt(COLOR_OFFSET));
+        hasRandomPastels = index.getInt(PASTELS_OFFSET) != 0;
+        seed = index.getLong(SEED_OFFSET);
+    }
+
+    //------------------------------------------------------------------------
+    //                      Static Methods
+    //------------------------------------------------------------------------
+
+    /**
+     * Draws every fractal the sliders can choose into a new atlas, replacing any file already there;
+     *      the images are drawn in parallel, one per processor at a time, most expensive first
+     *      so the cheap ones fill in around them, and each is written as soon as it is drawn;
+     *      the index is written last, and the file only marked complete once everything is on disk
+     * @param path              where the atlas is written
+     * @param color             the color every image is drawn with, unless random pastels are
+     * @param hasRandomPastels  whether every image is drawn with random pastels
+     * @param seed              the seed every image is drawn with
+     * @param background        the color of the background behind each fractal
+     * @param progress          told how many images have been drawn every so often
+     * @throws IOException if the file cannot be written, or an image cannot be drawn
+     */
+    public static void build(Path path, Color color, boolean hasRandomPastels, long seed, Color background,
+                             PrintStream progress) throws IOException {
+        int width = FractalDrawing.WINDOW_DIMENSION.width;
+        int height = FractalDrawing.WINDOW_DIMENSION.height;
+        long[] offsets = new long[ENTRY_COUNT];
+        int[] lengths = new int[ENTRY_COUNT];
+        long[] nextOffset = {HEADER_BYTES + (long) ENTRY_COUNT * INDEX_ENTRY_BYTES};
+        AtomicInteger built = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            //the deepest fractals with the most children are last in the index, and take longest to draw
+            List<Future<?>> images = new ArrayList<>();
+            for (int entry = ENTRY_COUNT - 1; entry >= 0; entry--) {
+                int current = entry;
+                images.add(pool.submit(() -> {
+                    FractalParams params = entryParams(current, color, hasRandomPastels, seed);
+                    FractalGenerator generator = new FractalGenerator();
+                    generator.setParams(params.getRecurseDepth(), params.getChildRatio(), params.getChildCount(),
+                                        params.getBedlamLevel(), params.getColor(), params.hasRandomPastels());
+                    generator.setSeed(params.getSeed());
+                    ByteArrayOutputStream png = new ByteArrayOutputStream();
+                    new HeadlessRenderer(generator, background).render(png, width, height);
+
+                    long offset;
+                    synchronized (nextOffset) {
+                        offset = place(nextOffset[0], png.size());
+                        nextOffset[0] = offset + png.size();
+                    }
+                    ByteBuffer bytes = ByteBuffer.wrap(png.toByteArray());
+                    while (bytes.hasRemaining()) {
+                        channel.write(bytes, offset + bytes.position());
+                    }
+                    offsets[current] = offset;
+                    lengths[current] = png.size();
+
+                    int done = built.incrementAndGet();
+                    if (done * 20L / ENTRY_COUNT != (done - 1) * 20L / ENTRY_COUNT || done == ENTRY_COUNT) {
+                        progress.println("drew " + done + " of " + ENTRY_COUNT + " images");
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> image : images) {
+                image.get();
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + ENTRY_COUNT * INDEX_ENTRY_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC_OFFSET, MAGIC);
+            header.putInt(VERSION_OFFSET, FORMAT_VERSION);
+            header.putInt(WIDTH_OFFSET, width);
+            header.putInt(HEIGHT_OFFSET, height);
+            header.putInt(ENTRY_COUNT_OFFSET, ENTRY_COUNT);
+            header.putInt(COLOR_OFFSET, color.getRGB());
+            header.putInt(PASTELS_OFFSET, hasRandomPastels ? 1 : 0);
+            header.putInt(COMPLETE_OFFSET, 0);
+            header.putLong(SEED_OFFSET, seed);
+            for (int entry = 0; entry < ENTRY_COUNT; entry++) {
+                int entryStart = HEADER_BYTES + entry * INDEX_ENTRY_BYTES;
+                header.putLong(entryStart + IMAGE_OFFSET, offsets[entry]);
+                header.putInt(entryStart + LENGTH_OFFSET, lengths[entry]);
+            }
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(false);
+
+            ByteBuffer complete = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, 1);
+            channel.write(complete, COMPLETE_OFFSET);
+            channel.force(false);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause()
+                                                      : new IOException("could not draw an image", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while drawing images", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Private method to build; finds where the next image goes,
+     *      moving it to the start of the next mapping if it would otherwise cross into it
+     * @param offset    the first free byte of the file
+     * @param length    the number of bytes in the image
+     * @return  the byte the image starts at
+     */
+    private static long place(long offset, int length) {
+        long segmentEnd = ((offset >>> SEGMENT_SHIFT) + 1) << SEGMENT_SHIFT;
+        return offset + length > segmentEnd ? segmentEnd : offset;
+    }
+
+    /**
+     * Opens an atlas built earlier, mapping it without reading any images
+     * @param path  where the atlas is
+     * @return  the atlas in the file
+     * @throws IOException if the file cannot be mapped, is not an atlas, or was never finished
+     */
+    public static FractalAtlas open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException(path + " is not an atlas file");
+            }
+            MappedByteBuffer header = map(channel, 0, HEADER_BYTES);
+            if (header.getInt(MAGIC_OFFSET) != MAGIC) {
+                throw new IOException(path + " is not an atlas file");
+            }
+            if (header.getInt(VERSION_OFFSET) != FORMAT_VERSION) {
+                throw new IOException(path + " has atlas format " + header.getInt(VERSION_OFFSET)
+                        + ", expected " + FORMAT_VERSION);
+            }
+            if (header.getInt(ENTRY_COUNT_OFFSET) != ENTRY_COUNT
+                    || header.getInt(WIDTH_OFFSET) != FractalDrawing.WINDOW_DIMENSION.width
+                    || header.getInt(HEIGHT_OFFSET) != FractalDrawing.WINDOW_DIMENSION.height) {
+                throw new IOException(path + " was built for different sliders or a different window");
+            }
+            if (header.getInt(COMPLETE_OFFSET) == 0) {
+                throw new IOException(path + " was never finished building");
+            }
+
+            MappedByteBuffer index = map(channel, 0, HEADER_BYTES + (long) ENTRY_COUNT * INDEX_ENTRY_BYTES);
+            int segmentCount = (int) ((channel.size() + (1L << SEGMENT_SHIFT) - 1) >>> SEGMENT_SHIFT);
+            MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+            for (int segment = 0; segment < segmentCount; segment++) {
+                long start = (long) segment << SEGMENT_SHIFT;
+                segments[segment] = map(channel, start, Math.min(1L << SEGMENT_SHIFT, channel.size() - start));
+            }
+            for (int entry = 0; entry < ENTRY_COUNT; entry++) {
+                long offset = index.getLong(HEADER_BYTES + entry * INDEX_ENTRY_BYTES + IMAGE_OFFSET);
+                int length = index.getInt(HEADER_BYTES + entry * INDEX_ENTRY_BYTES + LENGTH_OFFSET);
+                if (length < 0 || offset < 0 || offset + length > channel.size()
+                        || (offset >>> SEGMENT_SHIFT) != ((offset + length - 1) >>> SEGMENT_SHIFT)) {
+                    throw new IOException(path + " is cut short or damaged at image " + entry);
+                }
+            }
+            return new FractalAtlas(index, segments);
+        }
+    }
+
+    /**
+     * Private method to open; maps part of the file read only, little endian whatever the platform
+     * @param channel   the file's channel
+     * @param position  the byte the part starts at
+     * @param size      the number of bytes in the part
+     * @return  the mapped part
+     * @throws IOException if the part cannot be mapped
+     */
+    private static MappedByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    /**
+     * Returns the place of a fractal in the index, the slider positions read as one number
+     *      with the recursion depth most significant and the bedlam level least
+     * @param params    the settings of the fractal
+     * @return  the fractal's place in the index, or -1 if no slider position gives those settings
+     */
+    static int entryIndex(FractalParams params) {
+        int depth = params.getRecurseDepth() - FractalGui.MIN_RECURSE_DEPTH;
+        int ratio = params.getChildRatio() - FractalGui.MIN_CHILD_RATIO;
+        int count = params.getChildCount() - FractalGui.MIN_CHILD_COUNT;
+        int bedlam = params.getBedlamLevel();
+        if (depth < 0 || depth >= DEPTH_STOPS || ratio < 0 || ratio % FractalGui.CHILD_RATIO_STEP != 0
+                || ratio / FractalGui.CHILD_RATIO_STEP >= RATIO_STOPS || count < 0 || count >= COUNT_STOPS
+                || bedlam < 0 || bedlam >= BEDLAM_STOPS) {
+            return -1;
+        }
+        return ((depth * RATIO_STOPS + ratio / FractalGui.CHILD_RATIO_STEP) * COUNT_STOPS + count)
+               * BEDLAM_STOPS + bedlam;
+    }
+
+    /**
+     * Returns the settings of the fractal at a place in the index, the reverse of entryIndex
+     * @param entry             the fractal's place in the index
+     * @param color             the color the fractal is drawn with, unless random pastels are
+     * @param hasRandomPastels  whether the fractal is drawn with random pastels
+     * @param seed              the seed the fractal is drawn with
+     * @return  the settings of the fractal
+     */
+    static FractalParams entryParams(int entry, Color color, boolean hasRandomPastels, long seed) {
+        int bedlam = entry % BEDLAM_STOPS;
+        int count = entry / BEDLAM_STOPS % COUNT_STOPS;
+        int ratio = entry / BEDLAM_STOPS / COUNT_STOPS % RATIO_STOPS;
+        int depth = entry / BEDLAM_STOPS / COUNT_STOPS / RATIO_STOPS;
+        return new FractalParams(depth + FractalGui.MIN_RECURSE_DEPTH,
+                                 ratio * FractalGui.CHILD_RATIO_STEP + FractalGui.MIN_CHILD_RATIO,
+                                 count + FractalGui.MIN_CHILD_COUNT, bedlam, color, hasRandomPastels, seed);
+    }
+
+    //------------------------------------------------------------------------
+    //                      Instance Methods
+    //------------------------------------------------------------------------
+
+    /**
+     * Looks up the drawing of a fractal, decoded from the mapping;
+     *      read through a memory cache stream, so decoding never spills to a temporary file
+     *      as ImageIO.read of a plain stream can
+     * @param params    the settings of the fractal
+     * @return  the fractal drawn over the background at the size of the FractalDrawing window,
+     *      or null if the atlas does not hold it, as it is not on a slider position
+     *      or was drawn with different colors, or if its image cannot be decoded
+     */
+    public BufferedImage lookup(FractalParams params) {
+        int entry = entryIndex(params);
+        if (entry < 0 || !hasColorsOf(params)) {
+            FractalMetrics.increment("atlas.miss");
+            return null;
+        }
+        long offset = index.getLong(HEADER_BYTES + entry * INDEX_ENTRY_BYTES + IMAGE_OFFSET);
+        int length = index.getInt(HEADER_BYTES + entry * INDEX_ENTRY_BYTES + LENGTH_OFFSET);
+        byte[] png = new byte[length];
+        segments[(int) (offset >>> SEGMENT_SHIFT)].get((int) (offset & ((1L << SEGMENT_SHIFT) - 1)), png);
+        try {
+            BufferedImage image = ImageIO.read(new MemoryCacheImageInputStream(new ByteArrayInputStream(png)));
+            FractalMetrics.increment(image == null ? "atlas.miss" : "atlas.hit");
+            return image;
+        } catch (IOException e) {
+            FractalMetrics.increment("atlas.miss");
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether the fractal would be drawn with the same colors as the atlas was;
+     *      the color does not matter when pastels are shown, nor the seed when nothing random is drawn
+     * @param params    the settings of the fractal
+     * @return  true if the atlas's image of the fractal has the right colors
+     */
+    private boolean hasColorsOf(FractalParams params) {
+        if (params.hasRandomPastels() != hasRandomPastels) {
+            return false;
+        }
+        if (!hasRandomPastels && !params.getColor().equals(color)) {
+            return false;
+        }
+        return params.getSeed() == seed || (params.getBedlamLevel() == 0 && !hasRandomPastels);
+    }
+}
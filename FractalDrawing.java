@@ -3,20 +3,56 @@ import javax.swing.JPanel;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.Toolkit;
-import java.util.ArrayList;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 /**
  * Contains the code a FractalDrawing JFrame;
  *      draws a fractal on a panel when updated, based on data pulled from subject
- *      this is the observer in the subject/observer model
+ *      this is the observer in the subject/observer model;
+ *      the fractal is generated and drawn off the event thread, so the window stays responsive,
+ *      and only the drawing for the latest update is ever shown;
+ *      shallow levels are drawn and shown first, deeper ones in later frames;
+ *      dragging pans and the mouse wheel zooms about the pointer, a double click goes back to the whole fractal;
+ *      once panned or zoomed the view is drawn in tiles, growing more detailed the deeper it is zoomed;
+ *      the tool tip describes the bubble under the mouse, found with the geometry's spatial index;
+ *      given an atlas, fractals it holds are looked up rather than drawn;
+ *      once only the colors change, the fractal is drawn as pastel picks and recolored from then on
  * @author Milo Bowles
  * @version 6/15/2022
  */
 public class FractalDrawing extends JFrame implements FractalObserver{
 
-    /** dimensions of the FractalDrawing JFrame */
-    private static final Dimension WINDOW_DIMENSION = new Dimension(600, 600);
+    /** dimensions of the FractalDrawing JFrame, which the fractal is laid out to fit */
+    public static final Dimension WINDOW_DIMENSION = new Dimension(600, 600);
+    /** the color behind the fractal */
+    private static final Color BACKGROUND = Color.BLACK;
+    /**
+     * the most bubbles that will be stored for drawing, enough for the largest fractal the sliders allow,
+     *      which the subject's geometry cache also has room for;
+     *      larger fractals are streamed from the subject while drawing instead
+     */
+    private static final long MAX_STORED_BUBBLES = FractalGeometry.nodeCount(FractalGui.MAX_RECURSE_DEPTH,
+                                                                             FractalGui.MAX_CHILD_COUNT);
+    /** the number of pixels around the window whose bubbles are still generated, covering outlines */
+    private static final int VIEWPORT_MARGIN = 2;
+    /**
+     * the least time between two rough drawings being shown, one frame at 30 frames a second,
+     *      and the most time a rough drawing is planned to take
+     */
+    private static final long FRAME_NANOS = 1_000_000_000L / 30;
+    /** the number of pixels between a failure written over the fractal and the panel's bottom left corner */
+    private static final int FAILURE_MARGIN = 8;
 
     /** toolKit of the FractalDrawing JFrame */
     private Toolkit toolKit;
@@ -24,8 +60,37 @@ public class FractalDrawing extends JFrame implements FractalObserver{
     private FractalSubject subject;
     /** the panel the fractal will be drawn on */
     private DrawingArea drawPanel;
-    /** a list of fractalElements to be used to draw a fractal */
-    private ArrayList<FractalElement> elements;
+    /** runs generation and drawing off the event thread, latest update wins */
+    private GenerationScheduler scheduler;
+    /** draws rough drawings of symmetric fractals from one rasterized sector */
+    private SymmetricRenderer symmetricRenderer;
+    /** draws every other fractal in bands across the processors */
+    private SpanRasterizer spanRasterizer;
+    /** finds the bubble under the mouse off the event thread, latest mouse move wins */
+    private GenerationScheduler inspector;
+    /** draws the view in tiles once it has been panned or zoomed */
+    private TileRenderer tileRenderer;
+    /** the drawings looked up before any are drawn, null if there is none */
+    private FractalAtlas atlas;
+    /** the latest fractal drawn as pastel picks, null until the colors alone change; used off the event thread */
+    private PaletteRaster paletteRaster;
+    /**
+     * the settings of the latest fractal shown, null until the first;
+     *      set off the event thread, and read by paint events on it
+     */
+    private volatile FractalParams lastShown;
+    /** the number of bubbles the latest fractal shown has, before pruning; set along with lastShown */
+    private volatile long lastShownBubbles;
+    /** the version of the newest snapshot handed to update */
+    private long lastVersion;
+    /** the newest snapshot handed to update, null until the first */
+    private volatile FractalSnapshot latestSnapshot;
+    /** the zoom level of the view, 0 being one pixel per unit */
+    private int zoom;
+    /** the x coordinate of the panel's left edge, in pixels of the zoomed plane right of the center bubble */
+    private long viewX;
+    /** the y coordinate of the panel's top edge, in pixels of the zoomed plane below the center bubble */
+    private long viewY;
 
     /**
      * Constructor of FractalDrawing
@@ -33,9 +98,37 @@ public class FractalDrawing extends JFrame implements FractalObserver{
      *                      pulling data from when triggered
      */
     public FractalDrawing(FractalSubject subject) {
+        this(subject, null);
+    }
+
+    /**
+     * Constructor of FractalDrawing, looking drawings up in an atlas before drawing them
+     * @param subject   the subject FractalDrawing will be attached to,
+     *                      pulling data from when triggered
+     * @param atlas     the drawings looked up before any are drawn, or null to always draw them
+     */
+    public FractalDrawing(FractalSubject subject, FractalAtlas atlas) {
         this.subject = subject;
+        this.atlas = atlas;
+        scheduler = new GenerationScheduler("FractalDrawing generation", failure -> {
+            drawPanel.setFailure("could not draw the fractal: " + failure);
+            drawPanel.repaint();
+        });
+        symmetricRenderer = new SymmetricRenderer(WINDOW_DIMENSION, 1);
+        spanRasterizer = new SpanRasterizer(WINDOW_DIMENSION, 1);
+        inspector = new GenerationScheduler("FractalDrawing inspection",
+                                            failure -> drawPanel.setToolTipText("could not inspect: " + failure));
+        tileRenderer = new TileRenderer(BACKGROUND, () -> drawPanel.repaint(), failure -> {
+            drawPanel.setFailure("could not draw a tile: " + failure);
+            drawPanel.repaint();
+        });
+        resetView();
+        subject.setViewport(new Rectangle2D.Double(-WINDOW_DIMENSION.width / 2 - VIEWPORT_MARGIN,
+                                                   -WINDOW_DIMENSION.height / 2 - VIEWPORT_MARGIN,
+                                                   WINDOW_DIMENSION.width + 2 * VIEWPORT_MARGIN,
+                                                   WINDOW_DIMENSION.height + 2 * VIEWPORT_MARGIN),
+                            SpanRasterizer.MIN_VISIBLE_RADIUS);
         subject.attach(this);
-        elements = new ArrayList<>(0);
 
         //sets up the JFrame
         setTitle("Bubbles and Bedlam Fractal");
@@ -50,7 +143,11 @@ public class FractalDrawing extends JFrame implements FractalObserver{
         //DrawArea
         drawPanel = new DrawingArea();
         drawPanel.setLayout(null);
-        drawPanel.setBackground(Color.BLACK);
+        drawPanel.setBackground(BACKGROUND);
+        ViewNavigator navigator = new ViewNavigator();
+        drawPanel.addMouseListener(navigator);
+        drawPanel.addMouseMotionListener(navigator);
+        drawPanel.addMouseWheelListener(navigator);
         getContentPane().add(drawPanel);
 
         setDefaultCloseOperation(EXIT_ON_CLOSE);
@@ -59,23 +156,351 @@ public class FractalDrawing extends JFrame implements FractalObserver{
 
     /**
      * @inheritdoc
+     *      the fractal is drawn off the event thread, progressively, and each drawing is shown
+     *      unless a newer update has arrived by then; snapshots older than one
+     *      already handed over are skipped; a fractal found in the atlas is shown at once instead,
+     *      and one differing only in color from the last shown is recolored rather than drawn;
+     *      the whole fractal is always drawn,
+     *      and a panned or zoomed view shows it stretched until its own tiles are drawn
      */
     @Override
-    public void update() {
-        elements = subject.getData();
-        drawPanel.repaint();
+    public void update(FractalSnapshot snapshot) {
+        if (snapshot.getVersion() <= lastVersion) {
+            return;
+        }
+        lastVersion = snapshot.getVersion();
+        latestSnapshot = snapshot;
+        if (!isWholeView()) {
+            drawPanel.repaint();
+        }
+        scheduler.<BufferedImage>submitProgressive(
+                (isCancelled, frames) -> {
+                    BufferedImage raster = atlas == null ? null : atlas.lookup(snapshot.getParams());
+                    if (raster == null) {
+                        raster = recolor(snapshot, isCancelled);
+                    }
+                    if (raster == null) {
+                        raster = drawProgressively(snapshot, isCancelled, frames);
+                    }
+                    if (!isCancelled.getAsBoolean()) {
+                        lastShownBubbles = snapshot.getDataSize();
+                        lastShown = snapshot.getParams();
+                    }
+                    return raster;
+                },
+                raster -> {
+                    drawPanel.setRaster(raster);
+                    drawPanel.setFailure(null);
+                    drawPanel.repaint();
+                });
+    }
+
+    /**
+     * Recolors the fractal last shown, if only its colors have changed;
+     *      the first time they change it is drawn as pastel picks, which costs about as much as drawing it,
+     *      and every change after costs one pass over the pixels
+     * @param snapshot      the subject's data to draw
+     * @param isCancelled   returns true once a newer update has made this drawing obsolete
+     * @return  a raster holding the fractal drawn over the background, or null if it has to be drawn instead
+     */
+    private BufferedImage recolor(FractalSnapshot snapshot, BooleanSupplier isCancelled) {
+        FractalParams params = snapshot.getParams();
+        if (paletteRaster == null || !paletteRaster.getParams().hasSameBubbles(params)) {
+            paletteRaster = null;
+            if (lastShown == null || !lastShown.hasSameBubbles(params) || params.equals(lastShown)
+                    || snapshot.getDataSize() > MAX_STORED_BUBBLES) {
+                return null;
+            }
+            paletteRaster = PaletteRaster.draw(snapshot, WINDOW_DIMENSION, isCancelled);
+            if (paletteRaster == null) {
+                return null;
+            }
+        }
+        return paletteRaster.toImage(FractalGenerator.palette(params.getColor(), params.hasRandomPastels()),
+                                     BACKGROUND);
+    }
+
+    /**
+     * Draws the fractal a few levels at a time, from the center bubble down;
+     *      each rough drawing is a complete drawing of the first levels, started afresh,
+     *      so the last is identical to drawing the whole fractal at once;
+     *      each rough drawing goes as deep as the time per bubble the one before it took says
+     *      can be drawn within a frame, and once not even one more level fits, the whole fractal is drawn,
+     *      so no rough drawing takes much more than a frame; one is shown only if a frame has passed
+     *      since the last one was
+     * @param snapshot      the subject's data to draw
+     * @param isCancelled   returns true once a newer update has made this drawing obsolete
+     * @param frames        shows a rough drawing while the deeper levels are drawn
+     * @return  a raster holding the whole fractal drawn over the background
+     */
+    private BufferedImage drawProgressively(FractalSnapshot snapshot, BooleanSupplier isCancelled,
+                                            Consumer<BufferedImage> frames) {
+        int depth = snapshot.getParams().getRecurseDepth();
+        long lastFrame = 0;
+        int passDepth = 1;
+        while (passDepth < depth && !isCancelled.getAsBoolean()) {
+            FractalSnapshot pass = snapshot.truncate(passDepth);
+            long start = System.nanoTime();
+            BufferedImage raster = drawRaster(pass, true, isCancelled);
+            long end = System.nanoTime();
+            if (lastFrame == 0 || end - lastFrame >= FRAME_NANOS) {
+                frames.accept(raster);
+                lastFrame = end;
+            }
+
+            //the deepest next rough drawing this one's pace draws within a frame,
+            //  generating included; the pace counts the fixed costs too, so it errs on the slow side
+            double nanosPerBubble = (double) (end - start) / Math.max(pass.getDataSize(), 1);
+            int nextDepth = passDepth;
+            while (nextDepth + 1 < depth
+                    && snapshot.truncate(nextDepth + 1).getDataSize() * nanosPerBubble <= FRAME_NANOS) {
+                nextDepth++;
+            }
+            if (nextDepth == passDepth) {
+                break;  //not even one more level fits in a frame
+            }
+            passDepth = nextDepth;
+        }
+        return drawRaster(snapshot, false, isCancelled);
+    }
+
+    /**
+     * Draws the fractal into a new offscreen raster, span by span across the processors, from the stored geometry,
+     *      or straight from the snapshot if it is too large to store;
+     *      a rough drawing of a symmetric fractal is stamped from one sector instead,
+     *      which is quicker but not pixel for pixel the same, so the drawing shown last never is
+     * @param snapshot      the subject's data to draw
+     * @param isRough       true if the drawing will be replaced by a more detailed one
+     * @param isCancelled   returns true once a newer update has made this drawing obsolete
+     * @return  a raster holding the fractal drawn over the background
+     */
+    private BufferedImage drawRaster(FractalSnapshot snapshot, boolean isRough, BooleanSupplier isCancelled) {
+        FractalEvents.UpdateEvent event = new FractalEvents.UpdateEvent();
+        event.begin();
+        long start = System.nanoTime();
+        long startBytes = FractalMetrics.threadAllocatedBytes();
+
+        BufferedImage image = new BufferedImage(WINDOW_DIMENSION.width, WINDOW_DIMENSION.height,
+                                                BufferedImage.TYPE_INT_RGB);
+        Arrays.fill(((DataBufferInt) image.getRaster().getDataBuffer()).getData(), BACKGROUND.getRGB());
+
+        long bubblesDrawn = 0;
+        boolean finished = false;
+        try {
+            if (isRough && symmetricRenderer.canDraw(snapshot)) {
+                finished = symmetricRenderer.draw(image, snapshot, isCancelled);
+                bubblesDrawn = symmetricRenderer.getBubblesDrawn();
+            } else {
+                FractalSource source = snapshot.getDataSize() > MAX_STORED_BUBBLES ? snapshot : snapshot.getGeometry();
+                finished = spanRasterizer.draw(source, image, 0, image.getHeight(), isCancelled);
+                bubblesDrawn = spanRasterizer.getBubblesDrawn();
+            }
+        } finally {
+            if (event.shouldCommit()) {
+                event.setParams(snapshot.getParams());
+            }
+            event.cancelled = !finished;
+            event.elementCount = bubblesDrawn;
+            event.bytesAllocated = FractalMetrics.threadAllocatedBytes() - startBytes;
+            event.commit();
+            FractalMetrics.record("update", System.nanoTime() - start);
+        }
+        return image;
+    }
+
+    /**
+     * Checks whether the view shows the whole fractal, neither panned nor zoomed
+     * @return  true if the view is the one the fractal is laid out to fit
+     */
+    private boolean isWholeView() {
+        return zoom == 0 && viewX == -WINDOW_DIMENSION.width / 2 && viewY == -WINDOW_DIMENSION.height / 2;
+    }
+
+    /**
+     * Goes back to the view showing the whole fractal
+     */
+    private void resetView() {
+        zoom = 0;
+        viewX = -WINDOW_DIMENSION.width / 2;
+        viewY = -WINDOW_DIMENSION.height / 2;
+    }
+
+    /**
+     * Zooms the view, keeping the point under the mouse where it is
+     * @param newZoom   the zoom level to go to, kept between 0 and TileRenderer.MAX_ZOOM
+     * @param mouseX    the x coordinate of the mouse on the panel
+     * @param mouseY    the y coordinate of the mouse on the panel
+     */
+    private void zoomAbout(int newZoom, int mouseX, int mouseY) {
+        newZoom = Math.max(0, Math.min(newZoom, TileRenderer.MAX_ZOOM));
+        double growth = TileRenderer.scale(newZoom) / TileRenderer.scale(zoom);
+        viewX = Math.round((viewX + mouseX) * growth) - mouseX;
+        viewY = Math.round((viewY + mouseY) * growth) - mouseY;
+        zoom = newZoom;
+    }
+
+    /**
+     * Describes the bubble under the mouse in the panel's tool tip; the bubble is found off the event thread,
+     *      from the spatial index of the stored geometry, so deeper bubbles a zoomed view adds are not found,
+     *      and fractals too large to store have no tool tip
+     * @param mouseX    the x coordinate of the mouse on the panel
+     * @param mouseY    the y coordinate of the mouse on the panel
+     */
+    private void inspect(int mouseX, int mouseY) {
+        FractalSnapshot snapshot = latestSnapshot;
+        if (snapshot == null || snapshot.getDataSize() > MAX_STORED_BUBBLES) {
+            drawPanel.setToolTipText(null);
+            return;
+        }
+        //the middle of the pixel under the mouse, using cartesian system
+        double scale = TileRenderer.scale(zoom);
+        double xCoord = (viewX + mouseX + .5) / scale;
+        double yCoord = -(viewY + mouseY + .5) / scale;
+        inspector.submit(isCancelled -> {
+            BubbleHit hit = snapshot.getGeometry().getIndex().find(xCoord, yCoord);
+            if (hit == null) {
+                return null;
+            }
+            return String.format("level %d, path %s, radius %.3f, color #%06x", hit.getLevel(),
+                                 Arrays.toString(hit.getPath()), hit.getRadius(), hit.getColor().getRGB() & 0xFFFFFF);
+        }, description -> drawPanel.setToolTipText(description));
+    }
+
+    /**
+     * Contains code for a view navigator, panning the view while the mouse is dragged,
+     *      zooming it as the wheel turns and going back to the whole fractal on a double click;
+     *      moving the mouse inspects the bubble under it
+     */
+    private class ViewNavigator extends MouseAdapter {
+
+        /** the x coordinate of the mouse when last pressed or dragged */
+        private int lastX;
+        /** the y coordinate of the mouse when last pressed or dragged */
+        private int lastY;
+
+        @Override
+        public void mousePressed(MouseEvent e) {
+            lastX = e.getX();
+            lastY = e.getY();
+        }
+
+        @Override
+        public void mouseMoved(MouseEvent e) {
+            inspect(e.getX(), e.getY());
+        }
+
+        @Override
+        public void mouseDragged(MouseEvent e) {
+            viewX -= e.getX() - lastX;
+            viewY -= e.getY() - lastY;
+            lastX = e.getX();
+            lastY = e.getY();
+            drawPanel.repaint();
+        }
+
+        @Override
+        public void mouseWheelMoved(MouseWheelEvent e) {
+            //turning the wheel away from the user zooms in
+            zoomAbout(zoom - e.getWheelRotation(), e.getX(), e.getY());
+            drawPanel.repaint();
+        }
+
+        @Override
+        public void mouseClicked(MouseEvent e) {
+            if (e.getClickCount() == 2) {
+                resetView();
+                drawPanel.repaint();
+            }
+        }
     }
 
     /**
      * Contains code for a DrawingArea JPanel,
-     *      paintComponent draws each fractal element based off elements list
+     *      paintComponent only copies the latest drawn raster of the fractal,
+     *      or the cached tiles of a panned or zoomed view, asking for any missing ones to be drawn,
+     *      with the latest failure to draw written over them
      */
     private class DrawingArea extends JPanel {
+
+        /** the fractal as last drawn, null until the first drawing is done */
+        private BufferedImage raster;
+        /** what last failed to draw, null if the latest drawing succeeded */
+        private String failure;
+
+        /**
+         * Replaces the raster shown by the panel
+         * @param raster    the newly drawn fractal
+         */
+        public void setRaster(BufferedImage raster) {
+            this.raster = raster;
+        }
+
+        /**
+         * Replaces the failure written over the fractal
+         * @param failure   what failed to draw, or null to write nothing
+         */
+        public void setFailure(String failure) {
+            this.failure = failure;
+        }
+
         @Override
         public void paintComponent(Graphics g) {
+            FractalEvents.PaintEvent event = new FractalEvents.PaintEvent();
+            event.begin();
+            long start = System.nanoTime();
+            long startBytes = FractalMetrics.threadAllocatedBytes();
+
             super.paintComponent(g);
-            for (FractalElement element : elements) {
-                element.draw(g, WINDOW_DIMENSION);
+            if (isWholeView()) {
+                if (raster != null) {
+                    g.drawImage(raster, 0, 0, null);
+                }
+            } else {
+                paintTiles((Graphics2D) g);
+            }
+            if (failure != null) {
+                g.setColor(Color.RED);
+                g.drawString(failure, FAILURE_MARGIN, getHeight() - FAILURE_MARGIN);
+            }
+
+            if (event.shouldCommit()) {
+                event.setParams(lastShown);
+            }
+            event.elementCount = lastShownBubbles;
+            event.bytesAllocated = FractalMetrics.threadAllocatedBytes() - startBytes;
+            event.commit();
+            FractalMetrics.record("paint", System.nanoTime() - start);
+        }
+
+        /**
+         * Paints a panned or zoomed view from cached tiles, over the whole fractal stretched to fit it,
+         *      and asks for the tiles that are missing or out of date to be drawn
+         * @param g the graphics reference used to draw
+         */
+        private void paintTiles(Graphics2D g) {
+            double scale = TileRenderer.scale(zoom);
+            if (raster != null) {
+                AffineTransform stretch = AffineTransform.getTranslateInstance(
+                        -viewX - WINDOW_DIMENSION.width / 2 * scale, -viewY - WINDOW_DIMENSION.height / 2 * scale);
+                stretch.scale(scale, scale);
+                g.drawImage(raster, stretch, null);
+            }
+
+            int tileSize = TileRenderer.TILE_SIZE;
+            for (long tileY = Math.floorDiv(viewY, tileSize);
+                 tileY <= Math.floorDiv(viewY + getHeight() - 1, tileSize); tileY++) {
+                for (long tileX = Math.floorDiv(viewX, tileSize);
+                     tileX <= Math.floorDiv(viewX + getWidth() - 1, tileSize); tileX++) {
+                    BufferedImage tile = tileRenderer.getTile(zoom, tileX, tileY);
+                    if (tile != null) {
+                        g.drawImage(tile, (int) (tileX * tileSize - viewX), (int) (tileY * tileSize - viewY), null);
+                    }
+                }
+            }
+
+            FractalSnapshot snapshot = latestSnapshot;
+            if (snapshot != null) {
+                tileRenderer.request(snapshot, zoom, new Rectangle2D.Double(viewX, viewY, getWidth(), getHeight()));
             }
         }
     }
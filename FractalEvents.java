@@ -0,0 +1,114 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Contains the JDK Flight Recorder events for each phase between a setting changing
+ *      and the fractal reaching the screen; each carries the parameters it ran with,
+ *      the number of elements it handled and the bytes its thread allocated
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public final class FractalEvents {
+
+    /**
+     * Private constructor, the events are only ever used through their own classes
+     */
+    private FractalEvents() {
+    }
+
+    /**
+     * Contains the fields every fractal event has
+     */
+    @Category("Fractal")
+    abstract static class FractalEvent extends Event {
+        @Label("Recursion Depth")
+        int recurseDepth;
+        @Label("Child Ratio")
+        int childRatio;
+        @Label("Child Count")
+        int childCount;
+        @Label("Bedlam Level")
+        int bedlamLevel;
+        @Label("Color")
+        String color;
+        @Label("Random Pastels")
+        boolean hasRandomPastels;
+        @Label("Seed")
+        long seed;
+        @Label("Element Count")
+        @Description("bubbles the fractal has, or for drawing the bubble draws made")
+        long elementCount;
+        @Label("Bytes Allocated")
+        @Description("bytes allocated by the event's thread, work on other threads isn't counted")
+        @DataAmount
+        long bytesAllocated;
+
+        /**
+         * Fills in the parameter fields; formats the color, so callers only do it when shouldCommit
+         * @param params    the parameters the phase ran with, null if unknown
+         */
+        void setParams(FractalParams params) {
+            if (params != null) {
+                recurseDepth = params.getRecurseDepth();
+                childRatio = params.getChildRatio();
+                childCount = params.getChildCount();
+                bedlamLevel = params.getBedlamLevel();
+                color = params.getColor() == null ? null
+                        : String.format("%06X", params.getColor().getRGB() & 0xFFFFFF);
+                hasRandomPastels = params.hasRandomPastels();
+                seed = params.getSeed();
+            }
+        }
+    }
+
+    /**
+     * Event for FractalSubject.setParams, including the observers it notifies
+     */
+    @Name("fractal.SetParams")
+    @Label("Set Params")
+    public static class SetParamsEvent extends FractalEvent {
+    }
+
+    /**
+     * Event for FractalSubject.notifyObservers
+     */
+    @Name("fractal.Notify")
+    @Label("Notify Observers")
+    public static class NotifyEvent extends FractalEvent {
+    }
+
+    /**
+     * Event for FractalSubject.getData, generating or reusing geometry
+     */
+    @Name("fractal.Generation")
+    @Label("Generation")
+    public static class GenerationEvent extends FractalEvent {
+        @Label("Cache Hit")
+        boolean cacheHit;
+        @Label("Cancelled")
+        boolean cancelled;
+    }
+
+    /**
+     * Event for the work FractalDrawing.update starts, generating and drawing the raster;
+     *      element count is the number of bubble draws made
+     */
+    @Name("fractal.Update")
+    @Label("Drawing Update")
+    public static class UpdateEvent extends FractalEvent {
+        @Label("Cancelled")
+        boolean cancelled;
+    }
+
+    /**
+     * Event for DrawingArea.paintComponent; element count is the number of bubbles the fractal last shown has
+     */
+    @Name("fractal.Paint")
+    @Label("Paint")
+    public static class PaintEvent extends FractalEvent {
+    }
+}
@@ -1,17 +1,47 @@
 import java.awt.Color;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Contains the code for a fractal generator,
  *      in which fractal elements are calculated and generated;
- *      the subject in the subject/observer model
+ *      the subject in the subject/observer model;
+ *      settings may be changed on one thread while generating on another,
+ *      each generation works from a snapshot and is cancelled if its geometry settings change
  * @author  Milo Bowles
  * @version 6/15/2022
  */
 public class FractalGenerator implements FractalSubject{
 
     /** the radius of the center circle in the fractal */
-    private static final int STARTING_RADIUS = 100;
+    static final int STARTING_RADIUS = 100;
+    /** subtrees with fewer bubbles than this are generated serially rather than split into tasks */
+    private static final long SERIAL_THRESHOLD = 1 << 14;
+    /** the most geometries kept in the cache */
+    private static final int CACHE_ENTRIES = 8;
+    /**
+     * the most bubbles kept in the cache across every geometry,
+     *      enough for the largest fractal the sliders allow, so even that one is recolored rather than regenerated
+     */
+    private static final long CACHE_BUBBLES = FractalGeometry.nodeCount(FractalGui.MAX_RECURSE_DEPTH,
+                                                                        FractalGui.MAX_CHILD_COUNT);
+    /** how far a bubble may deviate per bedlam level, as a fraction of its radius and angular spacing */
+    private static final double BEDLAM_STEP = .1;
+    /** the seed every fractal starts with, until setSeed is called */
+    public static final long DEFAULT_SEED = 0;
+    /**
+     * true if the JVM was started with the incubating Vector API,
+     *      in which case children without bedlam deviation are placed several at a time by VectorPlacement
+     */
+    private static final boolean VECTOR_PLACEMENT =
+            ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
 
     //------------------------------------------------------------------------
     //                      Instance Variables
@@ -34,6 +64,18 @@ public class FractalGenerator implements FractalSubject{
      *      if false each color will have the default color
      */
     private boolean hasRandomPastels;
+    /** the seed every bubble's pastel and deviation are derived from */
+    private long seed;
+    /** the region subtrees are pruned to, using cartesian system; null if none are */
+    private Rectangle2D viewport;
+    /** the radius below which bubbles, and everything below them, are pruned */
+    private double minRadius;
+    /** recently generated geometry, reused when only color settings change */
+    private GeometryCache geometryCache;
+    /** incremented whenever a setting the geometry depends on changes */
+    private volatile long geometryVersion;
+    /** the version of the last snapshot handed to observers */
+    private long snapshotVersion;
 
 
     //------------------------------------------------------------------------
@@ -52,6 +94,10 @@ public class FractalGenerator implements FractalSubject{
         bedlamLevel = 0;
         color = null;
         hasRandomPastels = false;
+        seed = DEFAULT_SEED;
+        viewport = null;
+        minRadius = 0;
+        geometryCache = new GeometryCache(CACHE_ENTRIES, CACHE_BUBBLES);
     }
 
     //------------------------------------------------------------------------
@@ -64,12 +110,66 @@ public class FractalGenerator implements FractalSubject{
     @Override
     public void setParams(int recurseDepth, int childRatio, int childCount, int bedlamLevel,
                           Color color, boolean hasRandomPastels) {
-        this.recurseDepth = recurseDepth;
-        this.childRatio = childRatio;
-        this.childCount = childCount;
-        this.bedlamLevel = bedlamLevel;
-        this.color = color;
-        this.hasRandomPastels = hasRandomPastels;
+        FractalEvents.SetParamsEvent event = new FractalEvents.SetParamsEvent();
+        event.begin();
+        long start = System.nanoTime();
+        long startBytes = FractalMetrics.threadAllocatedBytes();
+        synchronized (this) {
+            if (recurseDepth != this.recurseDepth || childRatio != this.childRatio
+                    || childCount != this.childCount || bedlamLevel != this.bedlamLevel) {
+                geometryVersion++;
+            }
+            this.recurseDepth = recurseDepth;
+            this.childRatio = childRatio;
+            this.childCount = childCount;
+            this.bedlamLevel = bedlamLevel;
+            this.color = color;
+            this.hasRandomPastels = hasRandomPastels;
+        }
+        notifyObservers();
+
+        if (event.shouldCommit()) {
+            event.setParams(getParams());
+            event.elementCount = getDataSize();
+        }
+        event.bytesAllocated = FractalMetrics.threadAllocatedBytes() - startBytes;
+        event.commit();
+        FractalMetrics.record("setParams", System.nanoTime() - start);
+    }
+
+    /**
+     * @inheritdoc
+     */
+    @Override
+    public synchronized FractalParams getParams() {
+        return new FractalParams(recurseDepth, childRatio, childCount, bedlamLevel, color, hasRandomPastels, seed);
+    }
+
+    /**
+     * @inheritdoc
+     */
+    @Override
+    public void setSeed(long seed) {
+        synchronized (this) {
+            if (seed == this.seed) {
+                return;
+            }
+            geometryVersion++;
+            this.seed = seed;
+        }
+        notifyObservers();
+    }
+
+    /**
+     * @inheritdoc
+     */
+    @Override
+    public void setViewport(Rectangle2D viewport, double minRadius) {
+        synchronized (this) {
+            geometryVersion++;
+            this.viewport = viewport == null ? null : (Rectangle2D) viewport.clone();
+            this.minRadius = minRadius;
+        }
         notifyObservers();
     }
 
@@ -91,51 +191,992 @@ public class FractalGenerator implements FractalSubject{
 
     /**
      * @inheritdoc
+     *      every observer is handed the same snapshot, which generates its geometry
+     *      the first time any of them asks for it
      */
     @Override
     public void notifyObservers() {
+        FractalEvents.NotifyEvent event = new FractalEvents.NotifyEvent();
+        event.begin();
+        long start = System.nanoTime();
+        long startBytes = FractalMetrics.threadAllocatedBytes();
+
+        Snapshot snapshot;
+        synchronized (this) {
+            snapshot = new Snapshot(new Generation(), ++snapshotVersion, null);
+        }
         for (FractalObserver oneObserver : observers) {
-            oneObserver.update();
+            oneObserver.update(snapshot);
+        }
+
+        if (event.shouldCommit()) {
+            event.setParams(snapshot.getParams());
+        }
+        event.elementCount = snapshot.getDataSize();
+        event.bytesAllocated = FractalMetrics.threadAllocatedBytes() - startBytes;
+        event.commit();
+        FractalMetrics.record("notify", System.nanoTime() - start);
+    }
+
+    /**
+     * @inheritdoc
+     *      geometry is cached by the settings it depends on,
+     *      so color changes only recolor the cached geometry;
+     *      a cached geometry differing only in depth is truncated,
+     *      or has just its missing levels generated below it;
+     *      levels too small to see are never allocated;
+     *      the geometry's spatial index is built along with it
+     * @throws CancellationException if geometry settings change before it finishes
+     */
+    @Override
+    public FractalGeometry getData() {
+        Generation generation = snapshot();
+        return getData(generation, null, true).withPalette(generation.createPalette());
+    }
+
+    /**
+     * Private method to getData; records the generation's flight recorder event and timings
+     * @param generation    the snapshot of the settings to generate from
+     * @param firstLevels   geometry of the first levels already generated for the same settings,
+     *                          used if the cache holds none deeper; null if there is none
+     * @param isCached      true if the geometry is kept in the cache, false if it is only a passing view
+     * @return  the geometry, not yet colored for the generation's color settings
+     * @throws CancellationException if geometry settings change before it finishes
+     */
+    private FractalGeometry getData(Generation generation, FractalGeometry firstLevels, boolean isCached) {
+        FractalEvents.GenerationEvent event = new FractalEvents.GenerationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        long startBytes = FractalMetrics.threadAllocatedBytes();
+        try {
+            FractalGeometry geometry = getData(generation, event, firstLevels, isCached);
+            event.elementCount = geometry.size();
+            return geometry;
+        } catch (CancellationException e) {
+            event.cancelled = true;
+            FractalMetrics.increment("generation.cancelled");
+            throw e;
+        } finally {
+            if (event.shouldCommit()) {
+                event.setParams(generation.getParams());
+            }
+            event.bytesAllocated = FractalMetrics.threadAllocatedBytes() - startBytes;
+            event.commit();
+            FractalMetrics.record("generation", System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Private method to getData;
+     *      returns cached geometry, or generates what is missing from the cache and the first levels given
+     * @param generation    the snapshot of the settings to generate from
+     * @param event         the generation's flight recorder event, told whether the cache was hit
+     * @param firstLevels   geometry of the first levels already generated for the same settings,
+     *                          used if the cache holds none deeper; null if there is none
+     * @param isCached      true if the geometry generated is put in the cache, false if it is only a passing view
+     * @return  the geometry, not yet colored for the generation's color settings
+     */
+    private FractalGeometry getData(Generation generation, FractalEvents.GenerationEvent event,
+                                    FractalGeometry firstLevels, boolean isCached) {
+        GeometryKey key = generation.getKey();
+        int depth = key.getRecurseDepth();
+        FractalGeometry geometry = geometryCache.get(key);
+        event.cacheHit = geometry != null;
+        FractalMetrics.increment(geometry != null ? "generation.cacheHit" : "generation.cacheMiss");
+        if (geometry == null) {
+            FractalGeometry deepest = geometryCache.getDeepest(key);
+            if (firstLevels != null && (deepest == null || firstLevels.getDepth() > deepest.getDepth())) {
+                deepest = firstLevels;
+            }
+            if (deepest != null && deepest.getDepth() >= depth) {
+                geometry = deepest.truncate(depth);
+            } else if (deepest != null && deepest.getDepth() > 0) {
+                geometry = deepest.extend(depth);
+                generation.getData(geometry, deepest.getDepth());
+            } else {
+                geometry = new FractalGeometry(depth, key.getChildCount(), StyleTable.PASTELS);
+                generation.getData(geometry, 0);
+            }
+            geometry.getIndex();
+            if (isCached) {
+                geometryCache.put(key, geometry);
+            }
         }
+        return geometry;
+    }
+
+    /**
+     * Generates the geometry of the fractal into a memory-mapped file instead of the heap,
+     *      for fractals too large to store in memory; if the file already holds finished geometry
+     *      for the same settings it is reopened as is, without generating anything
+     * @param path  where the geometry file is kept
+     * @return  the geometry in the file, colored for the current color settings
+     * @throws IOException if the file cannot be created or mapped
+     * @throws CancellationException if geometry settings change before it finishes,
+     *      the unfinished file is deleted
+     */
+    public GeometryFile getData(Path path) throws IOException {
+        Generation generation = snapshot();
+        GeometryKey key = generation.getKey();
+        Color[] palette = generation.createPalette();
+        if (Files.exists(path)) {
+            try {
+                GeometryFile existing = GeometryFile.open(path, palette);
+                if (existing.isComplete() && existing.getKey().equals(key)) {
+                    return existing;
+                }
+            } catch (IOException e) {
+                //not a usable geometry file, so it is generated over
+            }
+        }
+
+        GeometryFile geometry = GeometryFile.create(path, key, palette);
+        try {
+            ForkJoinPool.commonPool().invoke(
+                    generation.new SubtreeTask(geometry, 0, 0, key.getRecurseDepth(), STARTING_RADIUS, 0, 0));
+        } catch (CancellationException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+        geometry.finish();
+        return geometry;
+    }
+
+    /**
+     * @inheritdoc
+     * @throws CancellationException if geometry settings change before it finishes
+     */
+    @Override
+    public boolean walk(FractalVisitor visitor) {
+        Generation generation = snapshot();
+        return generation.walk(visitor, generation.viewport, generation.minRadius);
     }
 
     /**
      * @inheritdoc
+     * @throws CancellationException if geometry settings change before it finishes
      */
     @Override
-    public ArrayList<FractalElement> getData() {
-        ArrayList<FractalElement> dataArrayList = new ArrayList<>();
-        getData(dataArrayList, 0, 0, recurseDepth, STARTING_RADIUS);
-        return dataArrayList;
-    }
-
-    /**
-     * Private recursive method to getData;
-     *      generates an element and recurses based of instance data
-     *      adds each element to a list
-     * @param dataArrayList     the list of fractal elements to be added to
-     * @param centerX           the center x coordinate of the fractal element to be generated
-     * @param centerY           the center y coordinate of the fractal element to be generated
-     * @param recurseCounter    the number of recursions left for the fractal to do;
-     *                              if 0 or less the element won't be generated
-     * @param initialRadius     the radius of the element to be generated
-     */
-    private void getData(ArrayList<FractalElement> dataArrayList, double centerX, double centerY,
-                         int recurseCounter, double initialRadius) {
-
-        if (recurseCounter > 0) {
-            //"places" a circle and arc at center coordinates
-            dataArrayList.add(new Bubble(initialRadius, centerX, centerY, color, hasRandomPastels));
-            dataArrayList.add(new Arc(initialRadius * .75, centerX, centerY));
-            recurseCounter--;
-
-            //recurses for each child around original circle
-            double newRadius = initialRadius * ((double)childRatio / 100);
+    public boolean walk(FractalVisitor visitor, Rectangle2D region, double minRadius) {
+        return snapshot().walk(visitor, region, minRadius);
+    }
+
+    /**
+     * @inheritdoc
+     */
+    @Override
+    public boolean walkSector(FractalVisitor visitor, Rectangle2D region, double minRadius) {
+        return snapshot().walkSector(visitor, region, minRadius);
+    }
+
+    /**
+     * @inheritdoc
+     */
+    @Override
+    public long getDataSize() {
+        return snapshot().getDataSize();
+    }
+
+    /**
+     * Takes a snapshot of the current settings to generate from
+     * @return  a generation working from the current settings
+     */
+    private synchronized Generation snapshot() {
+        return new Generation();
+    }
+
+    /**
+     * Returns the angle a child sits at around its parent without bedlam deviation;
+     *      children are evenly spaced, counterclockwise, starting straight up
+     * @param child         which of its parent's children the bubble is
+     * @param childCount    the number of children a parent has
+     * @return  the angle of the child's center from its parent's, in radians
+     */
+    static double childAngle(int child, int childCount) {
+        return (Math.PI / 2) + child * ((2 * Math.PI) / childCount);
+    }
+
+    /**
+     * Returns the palette bubbles' pastel picks refer to for some color settings;
+     *      the pastels themselves, or the color for every pick
+     * @param color             the color of every bubble, unless random pastels are shown
+     * @param hasRandomPastels  whether bubbles are colored by their pastel picks
+     * @return  the palette for the color settings
+     */
+    static Color[] palette(Color color, boolean hasRandomPastels) {
+        if (hasRandomPastels) {
+            return StyleTable.PASTELS;
+        }
+        Color[] palette = new Color[StyleTable.PASTELS.length];
+        Arrays.fill(palette, color);
+        return palette;
+    }
+
+    /**
+     * Checks whether a circle touches a region
+     * @param region    the region, using cartesian system
+     * @param centerX   the center x coordinate of the circle
+     * @param centerY   the center y coordinate of the circle
+     * @param radius    the radius of the circle
+     * @return  true if any of the circle lies inside the region
+     */
+    static boolean intersects(Rectangle2D region, double centerX, double centerY, double radius) {
+        double dx = Math.max(Math.max(region.getMinX() - centerX, centerX - region.getMaxX()), 0);
+        double dy = Math.max(Math.max(region.getMinY() - centerY, centerY - region.getMaxY()), 0);
+        return dx * dx + dy * dy <= radius * radius;
+    }
+
+    /**
+     * Returns the largest a child can be next to its parent; every child is exactly the child ratio
+     *      of its parent, give or take the bedlam deviation
+     * @param childRatio    the ratio of a child to its parent
+     * @param bedlamLevel   the level of deviation of each bubble
+     * @return  the largest ratio of a child's radius to its parent's
+     */
+    static double maxChildRatio(int childRatio, int bedlamLevel) {
+        return (double)childRatio / 100 * (1 + bedlamLevel * BEDLAM_STEP / 2);
+    }
+
+    /**
+     * Returns how far from its root's center a subtree can reach;
+     *      each child sits (1 + ratio) parent radii out, and its own subtree
+     *      reaches the same multiple of its smaller radius, a geometric series
+     * @param initialRadius the radius of the subtree's root
+     * @param childRatio    the ratio of a child to its parent
+     * @param bedlamLevel   the level of deviation of each bubble
+     * @return  the radius of a circle around the root's center containing the whole subtree
+     */
+    static double subtreeExtent(double initialRadius, int childRatio, int bedlamLevel) {
+        double ratio = maxChildRatio(childRatio, bedlamLevel);
+        if (ratio >= 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return initialRadius * (1 + ratio) / (1 - ratio);
+    }
+
+    //------------------------------------------------------------------------
+    //                      Inner Classes
+    //------------------------------------------------------------------------
+
+    /**
+     * Contains the code for a snapshot handed to observers, one generation shared by all of them;
+     *      the geometry is generated by whichever observer asks for it first,
+     *      any others asking meanwhile wait for it rather than generating it again;
+     *      the geometry of a truncated snapshot is kept by the snapshot it was truncated from,
+     *      not the cache, so rough drawings never evict whole fractals
+     */
+    private class Snapshot implements FractalSnapshot {
+
+        /** the settings the snapshot was taken with */
+        private final Generation generation;
+        /** the version of the snapshot */
+        private final long version;
+        /** the snapshot this one keeps the first levels of, null if it is not truncated */
+        private final Snapshot whole;
+        /** the geometry, null until it is first asked for */
+        private FractalGeometry geometry;
+        /** the deepest geometry generated for a snapshot truncated from this one, null if there is none */
+        private FractalGeometry firstLevels;
+
+        /**
+         * Constructor for a snapshot
+         * @param generation    the settings the snapshot was taken with
+         * @param version       the version of the snapshot
+         * @param whole         the snapshot this one keeps the first levels of, null if it is not truncated
+         */
+        Snapshot(Generation generation, long version, Snapshot whole) {
+            this.generation = generation;
+            this.version = version;
+            this.whole = whole;
+        }
+
+        /**
+         * @inheritdoc
+         */
+        @Override
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * @inheritdoc
+         */
+        @Override
+        public FractalParams getParams() {
+            return generation.getParams();
+        }
+
+        /**
+         * @inheritdoc
+         */
+        @Override
+        public synchronized FractalGeometry getGeometry() {
+            if (geometry == null) {
+                FractalGeometry levels;
+                if (whole == null) {
+                    levels = getData(generation, firstLevels, true);
+                    firstLevels = null;
+                } else {
+                    levels = getData(generation, null, false);
+                    whole.keepFirstLevels(levels);
+                }
+                geometry = levels.withPalette(generation.createPalette());
+            }
+            return geometry;
+        }
+
+        /**
+         * Keeps the geometry of a snapshot truncated from this one, so generating this one's only adds
+         *      the levels below it; only the deepest is kept, and none once this one's is generated
+         * @param levels    the geometry of the truncated snapshot, not colored
+         */
+        private synchronized void keepFirstLevels(FractalGeometry levels) {
+            if (geometry == null && (firstLevels == null || levels.getDepth() > firstLevels.getDepth())) {
+                firstLevels = levels;
+            }
+        }
+
+        /**
+         * @inheritdoc
+         */
+        @Override
+        public boolean walk(FractalVisitor visitor) {
+            return generation.walk(visitor, generation.viewport, generation.minRadius);
+        }
+
+        /**
+         * @inheritdoc
+         */
+        @Override
+        public boolean walk(FractalVisitor visitor, Rectangle2D region, double minRadius) {
+            return generation.walk(visitor, region, minRadius);
+        }
+
+        /**
+         * @inheritdoc
+         */
+        @Override
+        public boolean walkSector(FractalVisitor visitor, Rectangle2D region, double minRadius) {
+            return generation.walkSector(visitor, region, minRadius);
+        }
+
+        /**
+         * @inheritdoc
+         */
+        @Override
+        public long getDataSize() {
+            return generation.getDataSize();
+        }
+
+        /**
+         * @inheritdoc
+         */
+        @Override
+        public FractalSnapshot truncate(int depth) {
+            if (depth >= generation.recurseDepth) {
+                return this;
+            }
+            return new Snapshot(new Generation(generation, depth), version, whole == null ? this : whole);
+        }
+
+        /**
+         * @inheritdoc
+         */
+        @Override
+        public FractalSnapshot extend(int depth) {
+            if (depth <= generation.recurseDepth) {
+                return this;
+            }
+            return new Snapshot(new Generation(generation, depth), version, null);
+        }
+    }
+
+    /**
+     * Contains the code for one generation of the fractal, working from a snapshot of the settings
+     *      so they can change while it runs; once the geometry settings change
+     *      the generation is obsolete, and it stops by throwing a CancellationException
+     */
+    private class Generation {
+
+        /** the number of times the fractal will recurse */
+        private final int recurseDepth;
+        /** the ratio of a child to its parent */
+        private final int childRatio;
+        /** the number of children a parent will have */
+        private final int childCount;
+        /** the level of deviation of each bubble */
+        private final int bedlamLevel;
+        /** the default color of every bubble */
+        private final Color color;
+        /** if true each color will have random pastel colors */
+        private final boolean hasRandomPastels;
+        /** the seed every bubble's pastel and deviation are derived from */
+        private final long seed;
+        /** the region subtrees are pruned to, using cartesian system; null if none are */
+        private final Rectangle2D viewport;
+        /** the radius below which bubbles, and everything below them, are pruned */
+        private final double minRadius;
+        /** the geometry version the snapshot was taken at */
+        private final long version;
+        /** the x offset of each child from its parent, per unit of distance, without bedlam deviation */
+        private final double[] unitX;
+        /** the y offset of each child from its parent, per unit of distance, without bedlam deviation */
+        private final double[] unitY;
+        /** the x offsets tiled for VectorPlacement, null if children are placed one at a time */
+        private final double[] tiledUnitX;
+        /** the y offsets tiled for VectorPlacement, null if children are placed one at a time */
+        private final double[] tiledUnitY;
+        /** the parent of each child tiled for VectorPlacement, null if children are placed one at a time */
+        private final int[] parentMap;
+
+        /**
+         * Constructor for a generation, must be called holding the generator's lock
+         */
+        private Generation() {
+            recurseDepth = FractalGenerator.this.recurseDepth;
+            childRatio = FractalGenerator.this.childRatio;
+            childCount = FractalGenerator.this.childCount;
+            bedlamLevel = FractalGenerator.this.bedlamLevel;
+            color = FractalGenerator.this.color;
+            hasRandomPastels = FractalGenerator.this.hasRandomPastels;
+            seed = FractalGenerator.this.seed;
+            viewport = FractalGenerator.this.viewport;
+            minRadius = FractalGenerator.this.minRadius;
+            version = geometryVersion;
+
+            //the same angles the recursion works out per bubble, worked out once per child
+            unitX = new double[Math.max(childCount, 0)];
+            unitY = new double[Math.max(childCount, 0)];
             for (int child = 0; child < childCount; child++) {
-                double theta = (Math.PI / 2) + child * ((2 * Math.PI) / childCount);
-                double bubbleX = Math.cos(theta) * (initialRadius + newRadius) + centerX;
-                double bubbleY = Math.sin(theta) * (initialRadius + newRadius) + centerY;
-                getData(dataArrayList, bubbleX, bubbleY, recurseCounter, newRadius);
+                double theta = childAngle(child, childCount);
+                unitX[child] = Math.cos(theta);
+                unitY[child] = Math.sin(theta);
+            }
+            boolean isTiled = VECTOR_PLACEMENT && childCount > 0;
+            tiledUnitX = isTiled ? VectorPlacement.tile(unitX, childCount) : null;
+            tiledUnitY = isTiled ? VectorPlacement.tile(unitY, childCount) : null;
+            parentMap = isTiled ? VectorPlacement.parentMap(childCount) : null;
+        }
+
+        /**
+         * Constructor for a generation of another's settings recursing to a different depth;
+         *      once a level has more bubbles than a long can count, indices there wrap around,
+         *      so bubbles that deep still get a fixed seed, if not always a distinct one
+         * @param generation    the generation whose settings are copied
+         * @param recurseDepth  the number of levels to generate
+         */
+        private Generation(Generation generation, int recurseDepth) {
+            this.recurseDepth = recurseDepth;
+            childRatio = generation.childRatio;
+            childCount = generation.childCount;
+            bedlamLevel = generation.bedlamLevel;
+            color = generation.color;
+            hasRandomPastels = generation.hasRandomPastels;
+            seed = generation.seed;
+            viewport = generation.viewport;
+            minRadius = generation.minRadius;
+            version = generation.version;
+            unitX = generation.unitX;
+            unitY = generation.unitY;
+            tiledUnitX = generation.tiledUnitX;
+            tiledUnitY = generation.tiledUnitY;
+            parentMap = generation.parentMap;
+        }
+
+        /**
+         * @return  the parameters this generation was set up with
+         */
+        FractalParams getParams() {
+            return new FractalParams(recurseDepth, childRatio, childCount, bedlamLevel, color, hasRandomPastels,
+                                     seed);
+        }
+
+        /**
+         * @return  the key the geometry of this generation is cached under
+         */
+        GeometryKey getKey() {
+            return new GeometryKey(visibleDepth(), childRatio, childCount, bedlamLevel, seed, viewport, minRadius);
+        }
+
+        /**
+         * Stops the generation if the geometry settings have changed since the snapshot
+         * @throws CancellationException if the generation is obsolete
+         */
+        private void checkCurrent() {
+            if (geometryVersion != version) {
+                throw new CancellationException("fractal settings changed during generation");
+            }
+        }
+
+        /**
+         * Returns the number of levels that can have bubbles at least the minimum radius;
+         *      bubbles shrink by the child ratio each level, give or take the bedlam deviation,
+         *      so the largest bubble a level can have shrinks by the largest ratio
+         * @return  the recursion depth, less any levels too small to see
+         */
+        int visibleDepth() {
+            int depth = 0;
+            double radius = STARTING_RADIUS;
+            while (depth < recurseDepth && radius >= minRadius) {
+                depth++;
+                radius *= maxChildRatio(childRatio, bedlamLevel);
+            }
+            return depth;
+        }
+
+        /**
+         * Checks whether a bubble survives pruning, using the viewport and minimum radius;
+         *      a bubble is pruned if it is too small to see or its whole subtree is outside the viewport,
+         *      either way nothing below it can be seen either
+         * @param centerX       the center x coordinate of the bubble
+         * @param centerY       the center y coordinate of the bubble
+         * @param initialRadius the radius of the bubble
+         * @return  true if the bubble should be generated
+         */
+        private boolean isVisible(double centerX, double centerY, double initialRadius) {
+            return initialRadius >= minRadius
+                    && (viewport == null || intersects(viewport, centerX, centerY, subtreeExtent(initialRadius)));
+        }
+
+        /**
+         * Creates the palette bubbles' pastel picks refer to;
+         *      the pastels themselves, or the default color for every pick
+         * @return  the palette for the current color settings
+         */
+        Color[] createPalette() {
+            return palette(color, hasRandomPastels);
+        }
+
+        /**
+         * Private recursive method to getData;
+         *      generates an element and recurses based of instance data
+         *      stores each element in the geometry
+         * @param geometry          where the fractal elements are stored
+         * @param centerX           the center x coordinate of the fractal element to be generated
+         * @param centerY           the center y coordinate of the fractal element to be generated
+         * @param recurseCounter    the number of recursions left for the fractal to do;
+         *                              if 0 or less the element won't be generated
+         * @param initialRadius     the radius of the element to be generated
+         * @param level             the level of the element to be generated
+         * @param index             the index of the element to be generated within its level;
+         *                              every bubble is picked a pastel whether or not pastels are shown
+         */
+        private void getData(GeometrySink geometry, double centerX, double centerY,
+                             int recurseCounter, double initialRadius, int level, long index) {
+
+            if (recurseCounter > 0 && isVisible(centerX, centerY, initialRadius)) {
+                checkCurrent();
+                //"places" a circle at center coordinates, its arc is derived from it
+                geometry.set(level, index, centerX, centerY, initialRadius, pastelIndex(level, index));
+                recurseCounter--;
+
+                //recurses for each child around original circle
+                double newRadius = initialRadius * ((double)childRatio / 100);
+                for (int child = 0; child < childCount; child++) {
+                    long childSeed = NodeRandom.nodeSeed(seed, level + 1, index * childCount + child);
+                    double theta = childTheta(child, childSeed);
+                    double bubbleRadius = childRadius(newRadius, childSeed);
+                    double bubbleX = Math.cos(theta) * (initialRadius + bubbleRadius) + centerX;
+                    double bubbleY = Math.sin(theta) * (initialRadius + bubbleRadius) + centerY;
+                    getData(geometry, bubbleX, bubbleY, recurseCounter, bubbleRadius,
+                            level + 1, index * childCount + child);
+                }
+            }
+        }
+
+        /**
+         * Generates the levels of a geometry breadth first, each level from the one above it;
+         *      gives the same bubbles as the recursive getData
+         * @param geometry  the geometry the fractal elements are stored in
+         * @param fromLevel the first level to generate, any levels above it are already generated
+         */
+        void getData(FractalGeometry geometry, int fromLevel) {
+            if (fromLevel == 0 && geometry.getDepth() > 0) {
+                if (!isVisible(0, 0, STARTING_RADIUS)) {
+                    return;
+                }
+                geometry.set(0, 0, 0, 0, STARTING_RADIUS, pastelIndex(0, 0));
+                fromLevel = 1;
+            }
+            for (int level = fromLevel; level < geometry.getDepth(); level++) {
+                checkCurrent();
+                ForkJoinPool.commonPool().invoke(
+                        new LevelTask(geometry, level - 1, 0, geometry.getLevelSize(level - 1)));
+            }
+        }
+
+        /**
+         * Picks a bubble's pastel from its seed
+         * @param level the level of the bubble
+         * @param index the index of the bubble within its level
+         * @return  an index into StyleTable.PASTELS
+         */
+        private int pastelIndex(int level, long index) {
+            return StyleTable.pastelIndex(NodeRandom.nodeSeed(seed, level, index));
+        }
+
+        /**
+         * Returns the angle a child sits at around its parent;
+         *      evenly spaced starting straight up, pushed off by up to half the bedlam deviation either way
+         * @param child     which of its parent's children the bubble is
+         * @param childSeed the seed of the child
+         * @return  the angle of the child's center from its parent's, in radians
+         */
+        private double childTheta(int child, long childSeed) {
+            double theta = childAngle(child, childCount);
+            if (bedlamLevel == 0) {
+                return theta;
+            }
+            double deviation = bedlamLevel * BEDLAM_STEP * (NodeRandom.nextDouble(childSeed, NodeRandom.ANGLE) - .5);
+            return theta + deviation * ((2 * Math.PI) / childCount);
+        }
+
+        /**
+         * Returns the radius of a child, grown or shrunk by up to half the bedlam deviation
+         * @param newRadius the radius every child has without deviation
+         * @param childSeed the seed of the child
+         * @return  the radius of the child
+         */
+        private double childRadius(double newRadius, long childSeed) {
+            if (bedlamLevel == 0) {
+                return newRadius;
+            }
+            double deviation = bedlamLevel * BEDLAM_STEP * (NodeRandom.nextDouble(childSeed, NodeRandom.RADIUS) - .5);
+            return newRadius * (1 + deviation);
+        }
+
+        /**
+         * Returns how far from its root's center a subtree can reach
+         * @param initialRadius the radius of the subtree's root
+         * @return  the radius of a circle around the root's center containing the whole subtree
+         */
+        private double subtreeExtent(double initialRadius) {
+            return FractalGenerator.subtreeExtent(initialRadius, childRatio, bedlamLevel);
+        }
+
+        /**
+         * Generates the part of the fractal that can reach the region, handing each bubble to the visitor
+         * @param visitor   the visitor each bubble is handed to
+         * @param region    the region of interest, subtrees outside it are skipped; null if nothing is skipped
+         * @param minRadius the radius below which bubbles, and everything below them, are skipped
+         * @return  true if every bubble in the region was visited, false if the visitor stopped the walk
+         */
+        boolean walk(FractalVisitor visitor, Rectangle2D region, double minRadius) {
+            return walk(visitor, region, minRadius, 0, 0, recurseDepth, STARTING_RADIUS, 0, 0);
+        }
+
+        /**
+         * Generates only the center bubble and the subtree of its first child,
+         *      handing each bubble to the visitor
+         * @param visitor   the visitor each bubble is handed to
+         * @param region    the region of interest, subtrees outside it are skipped; null if nothing is skipped
+         * @param minRadius the radius below which bubbles, and everything below them, are skipped
+         * @return  true if every bubble in the region was visited, false if the visitor stopped the walk
+         * @throws CancellationException if the fractal is not symmetric
+         */
+        boolean walkSector(FractalVisitor visitor, Rectangle2D region, double minRadius) {
+            if (!getParams().isSymmetric()) {
+                throw new CancellationException("fractal is not symmetric");
+            }
+            if (!walk(visitor, region, minRadius, 0, 0, 1, STARTING_RADIUS, 0, 0)) {
+                return false;
+            }
+
+            //the first child, placed the same as the recursive walk places it
+            double newRadius = STARTING_RADIUS * ((double)childRatio / 100);
+            double theta = childTheta(0, NodeRandom.nodeSeed(seed, 1, 0));
+            double bubbleX = Math.cos(theta) * (STARTING_RADIUS + newRadius);
+            double bubbleY = Math.sin(theta) * (STARTING_RADIUS + newRadius);
+            return walk(visitor, region, minRadius, bubbleX, bubbleY, recurseDepth - 1, newRadius, 1, 0);
+        }
+
+        /**
+         * @return  the number of bubbles the fractal has, before viewport pruning
+         */
+        long getDataSize() {
+            return FractalGeometry.nodeCount(visibleDepth(), childCount);
+        }
+
+        /**
+         * Private recursive method to walk;
+         *      generates an element, hands it to the visitor and recurses based of instance data
+         * @param visitor           the visitor each element is handed to
+         * @param region            the region of interest, subtrees outside it are skipped;
+         *                              null if nothing is skipped
+         * @param minRadius         the radius below which bubbles, and everything below them, are skipped
+         * @param centerX           the center x coordinate of the fractal element to be generated
+         * @param centerY           the center y coordinate of the fractal element to be generated
+         * @param recurseCounter    the number of recursions left for the fractal to do;
+         *                              if 0 or less the element won't be generated
+         * @param initialRadius     the radius of the element to be generated
+         * @param level             the level of the element to be generated
+         * @param index             the index of the element to be generated within its level
+         * @return  true if the walk should continue, false if the visitor stopped it
+         */
+        boolean walk(FractalVisitor visitor, Rectangle2D region, double minRadius,
+                             double centerX, double centerY, int recurseCounter, double initialRadius,
+                             int level, long index) {
+
+            if (recurseCounter > 0 && initialRadius >= minRadius) {
+                if (region != null && !intersects(region, centerX, centerY, subtreeExtent(initialRadius))) {
+                    return true;
+                }
+                checkCurrent();
+                Color bubbleColor = hasRandomPastels ? StyleTable.PASTELS[pastelIndex(level, index)] : color;
+                if (!visitor.visit(level, centerX, centerY, initialRadius, bubbleColor)) {
+                    return false;
+                }
+                recurseCounter--;
+
+                double newRadius = initialRadius * ((double)childRatio / 100);
+                for (int child = 0; child < childCount; child++) {
+                    long childSeed = NodeRandom.nodeSeed(seed, level + 1, index * childCount + child);
+                    double theta = childTheta(child, childSeed);
+                    double bubbleRadius = childRadius(newRadius, childSeed);
+                    double bubbleX = Math.cos(theta) * (initialRadius + bubbleRadius) + centerX;
+                    double bubbleY = Math.sin(theta) * (initialRadius + bubbleRadius) + centerY;
+                    if (!walk(visitor, region, minRadius, bubbleX, bubbleY, recurseCounter, bubbleRadius,
+                              level + 1, index * childCount + child)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Contains the code for generating one subtree of the fractal as a fork/join task;
+         *      large subtrees fork a task per child, small ones recurse serially;
+         *      every subtree writes to its own index range on each level,
+         *      so tasks never share the slots they write
+         */
+        class SubtreeTask extends RecursiveAction {
+
+            /** where the fractal elements are stored */
+            private final GeometrySink geometry;
+            /** the center x coordinate of the subtree's root */
+            private final double centerX;
+            /** the center y coordinate of the subtree's root */
+            private final double centerY;
+            /** the number of recursions left for the subtree */
+            private final int recurseCounter;
+            /** the radius of the subtree's root */
+            private final double initialRadius;
+            /** the level of the subtree's root */
+            private final int level;
+            /** the index of the subtree's root within its level */
+            private final long index;
+
+            /**
+             * Constructor for a subtree task, parameters match the recursive getData
+             * @param geometry          where the fractal elements are stored
+             * @param centerX           the center x coordinate of the subtree's root
+             * @param centerY           the center y coordinate of the subtree's root
+             * @param recurseCounter    the number of recursions left for the subtree
+             * @param initialRadius     the radius of the subtree's root
+             * @param level             the level of the subtree's root
+             * @param index             the index of the subtree's root within its level
+             */
+            SubtreeTask(GeometrySink geometry, double centerX, double centerY,
+                                int recurseCounter, double initialRadius, int level, long index) {
+                this.geometry = geometry;
+                this.centerX = centerX;
+                this.centerY = centerY;
+                this.recurseCounter = recurseCounter;
+                this.initialRadius = initialRadius;
+                this.level = level;
+                this.index = index;
+            }
+
+            /**
+             * Generates the subtree, splitting it into a task per child if it is large enough
+             */
+            @Override
+            protected void compute() {
+                if (recurseCounter <= 0 || !isVisible(centerX, centerY, initialRadius)) {
+                    return;
+                }
+                checkCurrent();
+                if (recurseCounter <= 1
+                        || FractalGeometry.nodeCount(recurseCounter, childCount) < SERIAL_THRESHOLD) {
+                    getData(geometry, centerX, centerY, recurseCounter, initialRadius, level, index);
+                    return;
+                }
+
+                //same placement as the recursive getData, but each child becomes a task
+                geometry.set(level, index, centerX, centerY, initialRadius, pastelIndex(level, index));
+
+                double newRadius = initialRadius * ((double)childRatio / 100);
+                SubtreeTask[] children = new SubtreeTask[childCount];
+                for (int child = 0; child < childCount; child++) {
+                    long childSeed = NodeRandom.nodeSeed(seed, level + 1, index * childCount + child);
+                    double theta = childTheta(child, childSeed);
+                    double bubbleRadius = childRadius(newRadius, childSeed);
+                    double bubbleX = Math.cos(theta) * (initialRadius + bubbleRadius) + centerX;
+                    double bubbleY = Math.sin(theta) * (initialRadius + bubbleRadius) + centerY;
+                    children[child] = new SubtreeTask(geometry, bubbleX, bubbleY, recurseCounter - 1,
+                            bubbleRadius, level + 1, index * childCount + child);
+                }
+                invokeAll(children);
+            }
+        }
+
+        /**
+         * Contains the code for generating the children of a range of one level's bubbles
+         *      as a fork/join task, generating the geometry one level at a time;
+         *      large ranges are split in half, each half writing its own children's slots
+         */
+        class LevelTask extends RecursiveAction {
+
+            /** the geometry the fractal elements are stored in */
+            private final FractalGeometry geometry;
+            /** the level of the parents whose children are generated */
+            private final int parentLevel;
+            /** the index of the first parent in the range */
+            private final int fromIndex;
+            /** the index after the last parent in the range */
+            private final int toIndex;
+
+            /**
+             * Constructor for a level task
+             * @param geometry      the geometry the fractal elements are stored in
+             * @param parentLevel   the level of the parents whose children are generated
+             * @param fromIndex     the index of the first parent in the range
+             * @param toIndex       the index after the last parent in the range
+             */
+            LevelTask(FractalGeometry geometry, int parentLevel, int fromIndex, int toIndex) {
+                this.geometry = geometry;
+                this.parentLevel = parentLevel;
+                this.fromIndex = fromIndex;
+                this.toIndex = toIndex;
+            }
+
+            /**
+             * Generates the children of the range, splitting it if it is large enough
+             */
+            @Override
+            protected void compute() {
+                if ((long) (toIndex - fromIndex) * childCount > SERIAL_THRESHOLD) {
+                    int middle = (fromIndex + toIndex) >>> 1;
+                    invokeAll(new LevelTask(geometry, parentLevel, fromIndex, middle),
+                              new LevelTask(geometry, parentLevel, middle, toIndex));
+                    return;
+                }
+
+                checkCurrent();
+                if (bedlamLevel == 0) {
+                    computeUniform();
+                    return;
+                }
+
+                //same placement as the recursive getData, one parent at a time
+                for (int index = fromIndex; index < toIndex; index++) {
+                    if (!geometry.isPresent(parentLevel, index)) {
+                        continue;   //everything below a pruned bubble is pruned too
+                    }
+                    double centerX = geometry.getX(parentLevel, index);
+                    double centerY = geometry.getY(parentLevel, index);
+                    double initialRadius = geometry.getRadius(parentLevel, index);
+                    double newRadius = initialRadius * ((double)childRatio / 100);
+                    for (int child = 0; child < childCount; child++) {
+                        long childIndex = (long) index * childCount + child;
+                        long childSeed = NodeRandom.nodeSeed(seed, parentLevel + 1, childIndex);
+                        double theta = childTheta(child, childSeed);
+                        double bubbleRadius = childRadius(newRadius, childSeed);
+                        double bubbleX = Math.cos(theta) * (initialRadius + bubbleRadius) + centerX;
+                        double bubbleY = Math.sin(theta) * (initialRadius + bubbleRadius) + centerY;
+                        if (isVisible(bubbleX, bubbleY, bubbleRadius)) {
+                            geometry.set(parentLevel + 1, childIndex, bubbleX, bubbleY, bubbleRadius,
+                                         pastelIndex(parentLevel + 1, childIndex));
+                        }
+                    }
+                }
+            }
+
+            /**
+             * Generates the children of the range when there is no bedlam deviation;
+             *      every parent on the level has the same radius and its children's angles are
+             *      the unit offsets, so each child is one multiply-add per coordinate;
+             *      with the Vector API the children of a chunk of parents, contiguous on their level,
+             *      are placed a whole vector at a time, otherwise one at a time
+             */
+            private void computeUniform() {
+                int first = fromIndex;
+                while (first < toIndex && !geometry.isPresent(parentLevel, first)) {
+                    first++;
+                }
+                if (first == toIndex) {
+                    return;     //every parent in the range was pruned
+                }
+                double initialRadius = geometry.getRadius(parentLevel, first);
+                double newRadius = initialRadius * ((double)childRatio / 100);
+                if (newRadius < minRadius) {
+                    return;
+                }
+                double childExtent = subtreeExtent(newRadius);
+                double distance = initialRadius + newRadius;
+                if (VECTOR_PLACEMENT) {
+                    placeChunks(first, newRadius, childExtent, distance);
+                    return;
+                }
+
+                int childLevel = parentLevel + 1;
+                for (int index = first; index < toIndex; index++) {
+                    if (!geometry.isPresent(parentLevel, index)) {
+                        continue;   //everything below a pruned bubble is pruned too
+                    }
+                    double centerX = geometry.getX(parentLevel, index);
+                    double centerY = geometry.getY(parentLevel, index);
+                    long firstChild = (long) index * childCount;
+                    for (int child = 0; child < childCount; child++) {
+                        double bubbleX = unitX[child] * distance + centerX;
+                        double bubbleY = unitY[child] * distance + centerY;
+                        if (viewport == null || intersects(viewport, bubbleX, bubbleY, childExtent)) {
+                            geometry.set(childLevel, firstChild + child, bubbleX, bubbleY, newRadius,
+                                         pastelIndex(childLevel, firstChild + child));
+                        }
+                    }
+                }
+            }
+
+            /**
+             * Private method to computeUniform; places the children of the range with VectorPlacement,
+             *      a chunk of parents at a time, then stores those of parents that weren't pruned
+             * @param first         the index of the first parent in the range that wasn't pruned
+             * @param newRadius     the radius of every child
+             * @param childExtent   the farthest a child's subtree reaches from the child's center
+             * @param distance      the distance from a parent's center to each of its children's
+             */
+            private void placeChunks(int first, double newRadius, double childExtent, double distance) {
+                int childLevel = parentLevel + 1;
+                int chunkParents = Math.min(VectorPlacement.CHUNK_PARENTS, toIndex - first);
+                double[] parentX = new double[chunkParents];
+                double[] parentY = new double[chunkParents];
+                double[] placedX = new double[chunkParents * childCount];
+                double[] placedY = new double[chunkParents * childCount];
+                boolean[] kept = new boolean[chunkParents * childCount];
+                for (int chunk = first; chunk < toIndex; chunk += chunkParents) {
+                    int parentCount = Math.min(chunkParents, toIndex - chunk);
+                    for (int parent = 0; parent < parentCount; parent++) {
+                        //a pruned parent's slot holds zeros, placed along with the rest and then left out
+                        parentX[parent] = geometry.getX(parentLevel, chunk + parent);
+                        parentY[parent] = geometry.getY(parentLevel, chunk + parent);
+                    }
+                    VectorPlacement.place(tiledUnitX, tiledUnitY, parentMap, childCount, parentX, parentY,
+                                          parentCount, distance, viewport, childExtent, placedX, placedY, kept);
+                    for (int parent = 0; parent < parentCount; parent++) {
+                        if (!geometry.isPresent(parentLevel, chunk + parent)) {
+                            continue;   //everything below a pruned bubble is pruned too
+                        }
+                        long firstChild = (long) (chunk + parent) * childCount;
+                        for (int child = 0, slot = parent * childCount; child < childCount; child++, slot++) {
+                            if (kept[slot]) {
+                                geometry.set(childLevel, firstChild + child, placedX[slot], placedY[slot],
+                                             newRadius, pastelIndex(childLevel, firstChild + child));
+                            }
+                        }
+                    }
+                }
             }
         }
     }
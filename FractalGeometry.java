@@ -0,0 +1,331 @@
+import java.awt.Color;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+/**
+ * Contains the code for a compact store of fractal geometry;
+ *      every bubble is one row across parallel primitive arrays, grouped by recursion level,
+ *      and each bubble's arc is derived from its row instead of being stored;
+ *      a bubble at (level, index) has its children at (level + 1, index * childCount + child);
+ *      each bubble stores the pastel it was picked, the palette decides what color that becomes,
+ *      so a geometry can be recolored without regenerating it;
+ *      bubbles pruned during generation, and everything below them, are left absent;
+ *      a spatial index for finding bubbles by position is built on first use
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public class FractalGeometry implements GeometrySink, FractalSource {
+
+    /** the ratio of an arc's radius to the radius of the bubble it sits in */
+    public static final double ARC_RATIO = .75;
+    /** the color index of a slot with no bubble in it, which every slot starts as */
+    private static final byte ABSENT = 0;
+
+    /** the number of levels stored */
+    private final int depth;
+    /** the number of children a parent has */
+    private final int childCount;
+    /** x coordinates of each bubble, per level, using cartesian system */
+    private final double[][] xCoords;
+    /** y coordinates of each bubble, per level, using cartesian system */
+    private final double[][] yCoords;
+    /** radius of each bubble, per level */
+    private final double[][] radii;
+    /** one more than the index into the palette of each bubble's color, per level, or ABSENT */
+    private final byte[][] colorIndices;
+    /** the colors a bubble's color index refers to, one per pastel */
+    private final Color[] palette;
+    /** finds bubbles by position, null until first asked for */
+    private BubbleIndex index;
+
+    /**
+     * Constructor for an empty geometry, sized for a full tree
+     * @param depth         the number of levels to be stored
+     * @param childCount    the number of children a parent has
+     * @param palette       the colors a bubble's color index refers to, one per pastel
+     */
+    public FractalGeometry(int depth, int childCount, Color[] palette) {
+        this.depth = depth;
+        this.childCount = childCount;
+        this.palette = palette;
+        xCoords = new double[depth][];
+        yCoords = new double[depth][];
+        radii = new double[depth][];
+        colorIndices = new byte[depth][];
+        for (int level = 0; level < depth; level++) {
+            int levelSize = levelSize(level, childCount);
+            xCoords[level] = new double[levelSize];
+            yCoords[level] = new double[levelSize];
+            radii[level] = new double[levelSize];
+            colorIndices[level] = new byte[levelSize];
+        }
+    }
+
+    /**
+     * Private constructor for a geometry sharing another's levels;
+     *      levels the other geometry doesn't have are allocated empty
+     * @param geometry  the geometry whose levels are shared
+     * @param depth     the number of levels to be stored
+     * @param palette   the colors a bubble's color index refers to, one per pastel
+     */
+    private FractalGeometry(FractalGeometry geometry, int depth, Color[] palette) {
+        this.depth = depth;
+        childCount = geometry.childCount;
+        this.palette = palette;
+        xCoords = Arrays.copyOf(geometry.xCoords, depth);
+        yCoords = Arrays.copyOf(geometry.yCoords, depth);
+        radii = Arrays.copyOf(geometry.radii, depth);
+        colorIndices = Arrays.copyOf(geometry.colorIndices, depth);
+        for (int level = geometry.depth; level < depth; level++) {
+            int levelSize = levelSize(level, childCount);
+            xCoords[level] = new double[levelSize];
+            yCoords[level] = new double[levelSize];
+            radii[level] = new double[levelSize];
+            colorIndices[level] = new byte[levelSize];
+        }
+    }
+
+    //------------------------------------------------------------------------
+    //                      Static Methods
+    //------------------------------------------------------------------------
+
+    /**
+     * Returns the number of bubbles on a level of a full tree
+     * @param level         the level, 0 being the center bubble
+     * @param childCount    the number of children a parent has
+     * @return  the number of bubbles on the level
+     * @throws IllegalArgumentException if the level would not fit in an array
+     */
+    public static int levelSize(int level, int childCount) {
+        long size = 1;
+        for (int i = 0; i < level; i++) {
+            size *= childCount;
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("level " + level + " with " + childCount
+                        + " children is too large to store");
+            }
+        }
+        return (int) size;
+    }
+
+    /**
+     * Returns the number of bubbles in a full tree
+     * @param depth         the number of levels in the tree
+     * @param childCount    the number of children a parent has
+     * @return  the number of bubbles in the tree
+     */
+    public static long nodeCount(int depth, int childCount) {
+        long count = 0;
+        long levelSize = 1;
+        for (int level = 0; level < depth; level++) {
+            count += levelSize;
+            levelSize *= childCount;
+        }
+        return count;
+    }
+
+    //------------------------------------------------------------------------
+    //                      Instance Methods
+    //------------------------------------------------------------------------
+
+    /**
+     * @inheritdoc
+     */
+    @Override
+    public void set(int level, long index, double xCoord, double yCoord, double radius, int colorIndex) {
+        int slot = (int) index;
+        xCoords[level][slot] = xCoord;
+        yCoords[level][slot] = yCoord;
+        radii[level][slot] = radius;
+        colorIndices[level][slot] = (byte) (colorIndex + 1);
+    }
+
+    /**
+     * Checks whether a slot holds a bubble, or was pruned during generation
+     * @param level the level of the slot
+     * @param index the index of the slot within its level
+     * @return  true if the slot holds a bubble
+     */
+    public boolean isPresent(int level, int index) {
+        return colorIndices[level][index] != ABSENT;
+    }
+
+    /**
+     * Returns this geometry recolored; the bubbles are shared, not copied,
+     *      so this costs the same no matter how large the geometry is
+     * @param newPalette    the colors a bubble's color index refers to, one per pastel
+     * @return  a geometry with the same bubbles, colored by the new palette
+     */
+    public FractalGeometry withPalette(Color[] newPalette) {
+        FractalGeometry recolored = new FractalGeometry(this, depth, newPalette);
+        synchronized (this) {
+            if (index != null) {
+                recolored.index = index.withGeometry(recolored);
+            }
+        }
+        return recolored;
+    }
+
+    /**
+     * Returns the spatial index of this geometry, building it on the first call;
+     *      recolored copies share it, so it is only built once per set of bubbles
+     * @return  the index for finding this geometry's bubbles by position
+     */
+    public synchronized BubbleIndex getIndex() {
+        if (index == null) {
+            index = new BubbleIndex(this);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the first levels of this geometry; the levels are shared, not copied
+     * @param newDepth  the number of levels to keep, no more than this geometry's depth
+     * @return  a geometry with only the first newDepth levels of this one
+     */
+    public FractalGeometry truncate(int newDepth) {
+        if (newDepth > depth) {
+            throw new IllegalArgumentException("cannot truncate " + depth + " levels to " + newDepth);
+        }
+        return new FractalGeometry(this, newDepth, palette);
+    }
+
+    /**
+     * Returns this geometry with empty levels added below it, for the generator to fill;
+     *      the existing levels are shared, not copied
+     * @param newDepth  the number of levels to have, no fewer than this geometry's depth
+     * @return  a geometry with this one's levels followed by empty ones
+     */
+    FractalGeometry extend(int newDepth) {
+        if (newDepth < depth) {
+            throw new IllegalArgumentException("cannot extend " + depth + " levels to " + newDepth);
+        }
+        return new FractalGeometry(this, newDepth, palette);
+    }
+
+    /**
+     * Returns the number of bubbles on one of this geometry's levels
+     * @param level the level, 0 being the center bubble
+     * @return  the number of bubbles on the level
+     */
+    public int getLevelSize(int level) {
+        return xCoords[level].length;
+    }
+
+    /**
+     * @return  the number of levels stored
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return  the number of children a parent has
+     */
+    public int getChildCount() {
+        return childCount;
+    }
+
+    /**
+     * @return  the number of bubble slots stored, counting pruned ones
+     */
+    public long size() {
+        return nodeCount(depth, childCount);
+    }
+
+    /**
+     * @param level the level of the bubble
+     * @param index the index of the bubble within its level
+     * @return  x coordinate of the bubble, using cartesian system
+     */
+    public double getX(int level, int index) {
+        return xCoords[level][index];
+    }
+
+    /**
+     * @param level the level of the bubble
+     * @param index the index of the bubble within its level
+     * @return  y coordinate of the bubble, using cartesian system
+     */
+    public double getY(int level, int index) {
+        return yCoords[level][index];
+    }
+
+    /**
+     * @param level the level of the bubble
+     * @param index the index of the bubble within its level
+     * @return  radius of the bubble
+     */
+    public double getRadius(int level, int index) {
+        return radii[level][index];
+    }
+
+    /**
+     * @param level the level of the bubble
+     * @param index the index of the bubble within its level
+     * @return  the color of the bubble
+     */
+    public Color getColor(int level, int index) {
+        return palette[colorIndices[level][index] - 1];
+    }
+
+    /**
+     * Hands every bubble to the visitor, parents before their children,
+     *      in the same order the elements were originally generated;
+     *      pruned bubbles and everything below them are skipped
+     * @param visitor   the visitor each bubble is handed to
+     * @return  true if every bubble was visited, false if the visitor stopped the walk
+     */
+    public boolean walk(FractalVisitor visitor) {
+        return walk(visitor, null, 0);
+    }
+
+    /**
+     * @inheritdoc
+     *      in the same order walk hands them over, straight from the arrays;
+     *      only bubbles touching the region are handed over, and subtrees the spatial index
+     *      says cannot reach it are skipped
+     */
+    @Override
+    public boolean walk(FractalVisitor visitor, Rectangle2D region, double minRadius) {
+        return depth == 0 || walk(visitor, region, minRadius, region == null ? null : getIndex(), 0, 0);
+    }
+
+    /**
+     * Private recursive method to walk;
+     *      visits a bubble, then each of its children
+     * @param visitor   the visitor each bubble is handed to
+     * @param region    the region of interest, using cartesian system; null for everywhere
+     * @param minRadius the radius below which bubbles, and everything below them, are skipped
+     * @param reaches   how far each subtree reaches, null if the region is
+     * @param level     the level of the bubble to be visited
+     * @param index     the index of the bubble within its level
+     * @return  true if the walk should continue, false if the visitor stopped it
+     */
+    private boolean walk(FractalVisitor visitor, Rectangle2D region, double minRadius, BubbleIndex reaches,
+                         int level, int index) {
+        double radius = radii[level][index];
+        if (colorIndices[level][index] == ABSENT || radius < minRadius) {
+            return true;
+        }
+        double xCoord = xCoords[level][index];
+        double yCoord = yCoords[level][index];
+        if (region != null && !FractalGenerator.intersects(region, xCoord, yCoord, reaches.reach(level, index))) {
+            return true;
+        }
+        if ((region == null || FractalGenerator.intersects(region, xCoord, yCoord, radius))
+                && !visitor.visit(level, xCoord, yCoord, radius, palette[colorIndices[level][index] - 1])) {
+            return false;
+        }
+
+        if (level + 1 < depth) {
+            int firstChild = index * childCount;
+            for (int child = 0; child < childCount; child++) {
+                if (!walk(visitor, region, minRadius, reaches, level + 1, firstChild + child)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
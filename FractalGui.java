@@ -1,10 +1,13 @@
+import javax.swing.AbstractAction;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
 import javax.swing.JColorChooser;
+import javax.swing.JComponent;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JSlider;
+import javax.swing.KeyStroke;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 import java.awt.Color;
@@ -12,6 +15,8 @@ import java.awt.Dimension;
 import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
 
 /**
  * Contains code for a functional FractalGui JFrame,
@@ -25,6 +30,22 @@ public class FractalGui extends JFrame implements ActionListener, ChangeListener
     public static final String title = "Bubbles and Bedlam Fractal Settings";
     /** the default color selected for fractal */
     public static final Color DEFAULT_COLOR = Color.RED;
+    /** the shallowest recursion depth the slider allows */
+    public static final int MIN_RECURSE_DEPTH = 2;
+    /** the deepest recursion depth the slider allows */
+    public static final int MAX_RECURSE_DEPTH = 8;
+    /** the smallest child ratio the slider allows */
+    public static final int MIN_CHILD_RATIO = 20;
+    /** the largest child ratio the slider allows */
+    public static final int MAX_CHILD_RATIO = 70;
+    /** the spacing of the child ratios the slider snaps to */
+    public static final int CHILD_RATIO_STEP = 5;
+    /** the fewest children the slider allows */
+    public static final int MIN_CHILD_COUNT = 1;
+    /** the most children the slider allows */
+    public static final int MAX_CHILD_COUNT = 11;
+    /** the highest bedlam level the slider allows, the lowest being 0 */
+    public static final int MAX_BEDLAM_LEVEL = 4;
 
     /** the toolKit of the JFrame */
     private Toolkit toolkit;
@@ -123,6 +144,16 @@ public class FractalGui extends JFrame implements ActionListener, ChangeListener
         });
         randPast.addActionListener(this);
 
+        //ctrl+M prints the timings gathered so far to the console
+        contentPane.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+                .put(KeyStroke.getKeyStroke(KeyEvent.VK_M, InputEvent.CTRL_DOWN_MASK), "dumpMetrics");
+        contentPane.getActionMap().put("dumpMetrics", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                FractalMetrics.dump(System.out);
+            }
+        });
+
         subject.setParams(recurseDepthSlider.getValue(), ratioSlider.getValue(), childCountSlider.getValue(),
                         bedlamSlider.getValue(), colorDisplay.getBackground(), randPast.isSelected());
         setDefaultCloseOperation(EXIT_ON_CLOSE);
@@ -167,7 +198,7 @@ public class FractalGui extends JFrame implements ActionListener, ChangeListener
      * @return  the recursion depth slider for the gui
      */
     private JSlider createRecurseSlider() {
-        JSlider recurseDepthSlider = new JSlider(2, 8, 2);
+        JSlider recurseDepthSlider = new JSlider(MIN_RECURSE_DEPTH, MAX_RECURSE_DEPTH, MIN_RECURSE_DEPTH);
         recurseDepthSlider.setBounds(50, 50, 300, 50);
         recurseDepthSlider.setMajorTickSpacing(1);
         recurseDepthSlider.setPaintTicks(true);
@@ -181,10 +212,10 @@ public class FractalGui extends JFrame implements ActionListener, ChangeListener
      * @return  the child ratio slider for the gui
      */
     private JSlider createRatioSlider() {
-        JSlider ratioSlider = new JSlider(20, 70, 20);
+        JSlider ratioSlider = new JSlider(MIN_CHILD_RATIO, MAX_CHILD_RATIO, MIN_CHILD_RATIO);
         ratioSlider.setBounds(50, 150, 300, 50);
         ratioSlider.setMajorTickSpacing(10);
-        ratioSlider.setMinorTickSpacing(5);
+        ratioSlider.setMinorTickSpacing(CHILD_RATIO_STEP);
         ratioSlider.setPaintTicks(true);
         ratioSlider.setPaintLabels(true);
         ratioSlider.setSnapToTicks(true);
@@ -196,7 +227,7 @@ public class FractalGui extends JFrame implements ActionListener, ChangeListener
      * @return  the child count slider for the gui
      */
     private JSlider createChildCountSlider() {
-        JSlider childCountSlider = new JSlider(1, 11, 1);
+        JSlider childCountSlider = new JSlider(MIN_CHILD_COUNT, MAX_CHILD_COUNT, MIN_CHILD_COUNT);
         childCountSlider.setBounds(50, 250, 300, 50);
         childCountSlider.setMajorTickSpacing(2);
         childCountSlider.setMinorTickSpacing(1);
@@ -211,7 +242,7 @@ public class FractalGui extends JFrame implements ActionListener, ChangeListener
      * @return  the bedlam level slider for the gui
      */
     private JSlider createBedlamSlider() {
-        JSlider bedlamSlider = new JSlider(0, 4, 0);
+        JSlider bedlamSlider = new JSlider(0, MAX_BEDLAM_LEVEL, 0);
         bedlamSlider.setBounds(50, 350, 300, 50);
         bedlamSlider.setMajorTickSpacing(1);
         bedlamSlider.setPaintTicks(true);
@@ -0,0 +1,137 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contains code for the in-process metrics registry;
+ *      latency histograms and counters, by name, that can be recorded from any thread
+ *      and dumped on demand
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public final class FractalMetrics {
+
+    /** the latency histograms, by name */
+    private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    /** the counters, by name */
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+    /** used to measure bytes allocated by the current thread */
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /**
+     * Private constructor, the registry is only ever used through its static methods
+     */
+    private FractalMetrics() {
+    }
+
+    /**
+     * Records one latency
+     * @param name  the name of the histogram
+     * @param nanos the latency in nanoseconds
+     */
+    public static void record(String name, long nanos) {
+        HISTOGRAMS.computeIfAbsent(name, key -> new Histogram()).record(nanos);
+    }
+
+    /**
+     * Adds one to a counter
+     * @param name  the name of the counter
+     */
+    public static void increment(String name) {
+        COUNTERS.computeIfAbsent(name, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Returns the bytes the current thread has allocated so far, for measuring a phase
+     * @return  the bytes allocated by the current thread, or 0 if the JVM cannot measure it
+     */
+    public static long threadAllocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            return Math.max(0, ((com.sun.management.ThreadMXBean) THREADS).getCurrentThreadAllocatedBytes());
+        }
+        return 0;
+    }
+
+    /**
+     * Writes every histogram and counter, sorted by name
+     * @param out   where the metrics are written
+     */
+    public static void dump(PrintStream out) {
+        out.println("fractal metrics");
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(HISTOGRAMS).entrySet()) {
+            out.println("  " + entry.getKey() + " " + entry.getValue());
+        }
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(COUNTERS).entrySet()) {
+            out.println("  " + entry.getKey() + " count=" + entry.getValue().sum());
+        }
+        out.flush();
+    }
+
+    /**
+     * Contains code for a latency histogram with power of two buckets;
+     *      bucket i holds latencies below 2^i nanoseconds, so percentiles are
+     *      reported as the upper edge of their bucket, within a factor of two
+     */
+    private static class Histogram {
+
+        /** the number of latencies in each bucket */
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+        /** the number of latencies recorded */
+        private final LongAdder count = new LongAdder();
+        /** the sum of every latency recorded, in nanoseconds */
+        private final LongAdder total = new LongAdder();
+        /** the largest latency recorded, in nanoseconds */
+        private volatile long max;
+
+        /**
+         * Records one latency
+         * @param nanos the latency in nanoseconds
+         */
+        void record(long nanos) {
+            nanos = Math.max(0, nanos);
+            buckets.incrementAndGet(Math.min(63, 64 - Long.numberOfLeadingZeros(nanos)));
+            count.increment();
+            total.add(nanos);
+            if (nanos > max) {
+                synchronized (this) {
+                    max = Math.max(max, nanos);
+                }
+            }
+        }
+
+        /**
+         * Returns the upper edge of the bucket a percentile falls in
+         * @param fraction  the percentile, as a fraction
+         * @param recorded  the number of latencies recorded
+         * @return  the percentile in nanoseconds, to within a factor of two
+         */
+        private long percentile(double fraction, long recorded) {
+            long rank = (long) Math.ceil(fraction * recorded);
+            long seen = 0;
+            for (int bucket = 0; bucket < 64; bucket++) {
+                seen += buckets.get(bucket);
+                if (seen >= rank) {
+                    return bucket == 0 ? 0 : Math.min(1L << bucket, max);
+                }
+            }
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            long recorded = count.sum();
+            if (recorded == 0) {
+                return "count=0";
+            }
+            return String.format(Locale.ROOT, "count=%d mean=%.3fms p50<=%.3fms p90<=%.3fms p99<=%.3fms max=%.3fms",
+                    recorded, total.sum() / 1e6 / recorded, percentile(.5, recorded) / 1e6,
+                    percentile(.9, recorded) / 1e6, percentile(.99, recorded) / 1e6, max / 1e6);
+        }
+    }
+}
@@ -5,7 +5,9 @@
  */
 public interface FractalObserver {
     /**
-     * causes the observer to get and use its subject's data, using a pull model;
+     * causes the observer to use its subject's data, using a push model;
+     *      every observer is handed the same snapshot, so the fractal is only generated once
+     * @param snapshot  the subject's data as it was when observers were notified
      */
-    public void update();
+    public void update(FractalSnapshot snapshot);
 }
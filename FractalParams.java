@@ -0,0 +1,153 @@
+import java.awt.Color;
+import java.util.Objects;
+
+/**
+ * Contains code for a set of fractal parameters, the values given to FractalSubject.setParams and setSeed;
+ *      immutable, so it can be handed between threads and used as a key
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public class FractalParams {
+
+    /** the number of times the fractal will recurse */
+    private final int recurseDepth;
+    /** the ratio of a child to its parent */
+    private final int childRatio;
+    /** the number of children a parent will have */
+    private final int childCount;
+    /** the level of deviation of each bubble */
+    private final int bedlamLevel;
+    /** the default color of every bubble */
+    private final Color color;
+    /** if true each bubble will have a random pastel color */
+    private final boolean hasRandomPastels;
+    /** the seed every bubble's pastel and deviation are derived from */
+    private final long seed;
+
+    /**
+     * Constructor for a set of fractal parameters
+     * @param recurseDepth      the number of recursions the fractal will do
+     * @param childRatio        the ratio of a child to its parent
+     * @param childCount        the number of children a parent element has
+     * @param bedlamLevel       the level of deviation a bubble will have
+     * @param color             the color a bubble will be set to by default
+     * @param hasRandomPastels  if true bubble will have random pastel colors
+     * @param seed              the seed every bubble's pastel and deviation are derived from
+     */
+    public FractalParams(int recurseDepth, int childRatio, int childCount, int bedlamLevel,
+                         Color color, boolean hasRandomPastels, long seed) {
+        this.recurseDepth = recurseDepth;
+        this.childRatio = childRatio;
+        this.childCount = childCount;
+        this.bedlamLevel = bedlamLevel;
+        this.color = color;
+        this.hasRandomPastels = hasRandomPastels;
+        this.seed = seed;
+    }
+
+    /**
+     * @return  the number of times the fractal will recurse
+     */
+    public int getRecurseDepth() {
+        return recurseDepth;
+    }
+
+    /**
+     * @return  the ratio of a child to its parent
+     */
+    public int getChildRatio() {
+        return childRatio;
+    }
+
+    /**
+     * @return  the number of children a parent will have
+     */
+    public int getChildCount() {
+        return childCount;
+    }
+
+    /**
+     * @return  the level of deviation of each bubble
+     */
+    public int getBedlamLevel() {
+        return bedlamLevel;
+    }
+
+    /**
+     * @return  the default color of every bubble
+     */
+    public Color getColor() {
+        return color;
+    }
+
+    /**
+     * @return  true if each bubble will have a random pastel color
+     */
+    public boolean hasRandomPastels() {
+        return hasRandomPastels;
+    }
+
+    /**
+     * @return  the seed every bubble's pastel and deviation are derived from
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Checks whether every subtree rooted on the same level is the same, only moved;
+     *      true unless bedlam deviation or random pastels make the subtrees differ
+     * @return  true if each level's subtrees are copies of one another
+     */
+    public boolean isSelfSimilar() {
+        return bedlamLevel == 0 && !hasRandomPastels;
+    }
+
+    /**
+     * Checks whether every child's subtree is the first child's turned around the center bubble;
+     *      true unless bedlam deviation or random pastels make the subtrees differ
+     * @return  true if the fractal has childCount-fold rotational symmetry
+     */
+    public boolean isSymmetric() {
+        return isSelfSimilar() && childCount > 1 && recurseDepth > 1;
+    }
+
+    /**
+     * Checks whether two settings give the same bubbles with the same pastel picks,
+     *      differing at most in the colors the bubbles are drawn with
+     * @param other the settings to compare with
+     * @return  true if only the color settings differ
+     */
+    public boolean hasSameBubbles(FractalParams other) {
+        return recurseDepth == other.recurseDepth && childRatio == other.childRatio
+                && childCount == other.childCount && bedlamLevel == other.bedlamLevel && seed == other.seed;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof FractalParams)) {
+            return false;
+        }
+        FractalParams params = (FractalParams) other;
+        return recurseDepth == params.recurseDepth && childRatio == params.childRatio
+                && childCount == params.childCount && bedlamLevel == params.bedlamLevel
+                && Objects.equals(color, params.color) && hasRandomPastels == params.hasRandomPastels
+                && seed == params.seed;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(recurseDepth, childRatio, childCount, bedlamLevel, color, hasRandomPastels, seed);
+    }
+
+    @Override
+    public String toString() {
+        return "depth=" + recurseDepth + " ratio=" + childRatio + " count=" + childCount
+                + " bedlam=" + bedlamLevel
+                + " color=" + (color == null ? "none" : String.format("%06X", color.getRGB() & 0xFFFFFF))
+                + " pastels=" + hasRandomPastels + " seed=" + seed;
+    }
+}
@@ -0,0 +1,80 @@
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Contains methods that must be present in a FractalSnapshot,
+ *      the settings of a fractal as they were when observers were notified;
+ *      immutable, and handed to every observer alike, so the fractal is generated once
+ *      however many observers use it, and changing settings afterwards doesn't change it
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public interface FractalSnapshot extends FractalSource {
+
+    /**
+     * returns the version of the snapshot; every notification hands out a newer snapshot
+     *      with a larger version, so an observer can skip any it has already moved past
+     * @return  the version of the snapshot
+     */
+    public long getVersion();
+
+    /**
+     * returns the parameters the snapshot was taken with
+     * @return  the parameters of the fractal
+     */
+    public FractalParams getParams();
+
+    /**
+     * returns the geometry of the fractal, generated on the first call and shared by every later one,
+     *      from any thread; pruned to the viewport the subject had when the snapshot was taken
+     * @return  the geometry of every visible bubble in the fractal
+     * @throws java.util.concurrent.CancellationException if the subject's geometry settings have changed
+     *      since the snapshot was taken, so a newer snapshot is on its way
+     */
+    public FractalGeometry getGeometry();
+
+    /**
+     * generates the fractal one bubble at a time, handing each to the visitor
+     *      instead of storing it; pruned to the viewport like getGeometry
+     * @param visitor   the visitor each bubble is handed to
+     * @return  true if every bubble was visited, false if the visitor stopped the walk
+     * @throws java.util.concurrent.CancellationException if the subject's geometry settings have changed
+     */
+    public boolean walk(FractalVisitor visitor);
+
+    /**
+     * generates only the center bubble and the subtree of its first child,
+     *      see FractalSubject.walkSector
+     * @param visitor   the visitor each bubble is handed to
+     * @param region    the region of interest, using cartesian system; null for everywhere
+     * @param minRadius the radius below which bubbles, and everything below them, are skipped
+     * @return  true if every bubble in the region was visited, false if the visitor stopped the walk
+     * @throws java.util.concurrent.CancellationException if the fractal is not symmetric,
+     *      or the subject's geometry settings have changed
+     */
+    public boolean walkSector(FractalVisitor visitor, Rectangle2D region, double minRadius);
+
+    /**
+     * returns the number of bubbles the fractal has, without generating it
+     * @return  the most bubbles getGeometry or walk would produce, before viewport pruning
+     */
+    public long getDataSize();
+
+    /**
+     * returns a snapshot of only the first levels of this one, with the same version;
+     *      its bubbles are exactly this snapshot's bubbles on those levels,
+     *      and its geometry is kept by this snapshot rather than the subject's cache,
+     *      so generating this snapshot's afterwards only adds the levels below
+     * @param depth the number of levels to keep
+     * @return  a snapshot recursing no deeper than depth, this snapshot if it is no deeper already
+     */
+    public FractalSnapshot truncate(int depth);
+
+    /**
+     * returns a snapshot recursing deeper than this one's settings ask for, with the same version,
+     *      so the detail of a zoomed in view can follow the zoom; meant to be walked a region at a time,
+     *      as the whole fractal at that depth is far too large to store
+     * @param depth the number of levels to recurse
+     * @return  a snapshot recursing depth levels, this snapshot if it is at least that deep already
+     */
+    public FractalSnapshot extend(int depth);
+}
@@ -0,0 +1,20 @@
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Contains methods that must be present in a FractalSource,
+ *      anything that can hand the bubbles of a region to a visitor
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public interface FractalSource {
+
+    /**
+     * hands every bubble that can reach the region to the visitor, parents before their children;
+     *      subtrees that lie wholly outside the region are skipped
+     * @param visitor   the visitor each bubble is handed to
+     * @param region    the region of interest, using cartesian system; null for everywhere
+     * @param minRadius the radius below which bubbles, and everything below them, are skipped
+     * @return  true if every bubble in the region was visited, false if the visitor stopped the walk
+     */
+    public boolean walk(FractalVisitor visitor, Rectangle2D region, double minRadius);
+}
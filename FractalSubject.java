@@ -1,12 +1,12 @@
 import java.awt.Color;
-import java.util.ArrayList;
+import java.awt.geom.Rectangle2D;
 
 /**
  * Contains methods that must be present in a FractalSubject
  * @author  Milo Bowles
  * @version 6/15/2022
  */
-public interface FractalSubject {
+public interface FractalSubject extends FractalSource {
 
     /**
      * adds the given observer to the subjects list of observers
@@ -26,10 +26,52 @@ public interface FractalSubject {
     public void notifyObservers();
 
     /**
-     * generates and returns a list of fractal elements, recursed based on subject data
-     * @return  a list of fractal elements
+     * generates and returns the geometry of the fractal, recursed based on subject data;
+     *      subtrees that are too small or fall outside the viewport are pruned
+     * @return  the geometry of every visible bubble in the fractal
      */
-    public ArrayList<FractalElement> getData();
+    public FractalGeometry getData();
+
+    /**
+     * generates the fractal one bubble at a time, handing each to the visitor
+     *      as it is generated instead of storing it; parents come before their children;
+     *      pruned to the viewport like getData
+     * @param visitor   the visitor each bubble is handed to
+     * @return  true if every bubble was visited, false if the visitor stopped the walk
+     */
+    public boolean walk(FractalVisitor visitor);
+
+    /**
+     * generates only the part of the fractal that can reach the region,
+     *      handing each bubble to the visitor as it is generated;
+     *      subtrees that lie wholly outside the region are skipped
+     * @param visitor   the visitor each bubble is handed to
+     * @param region    the region of interest, using cartesian system; null for everywhere
+     * @param minRadius the radius below which bubbles, and everything below them, are skipped
+     * @return  true if every bubble in the region was visited, false if the visitor stopped the walk
+     */
+    @Override
+    public boolean walk(FractalVisitor visitor, Rectangle2D region, double minRadius);
+
+    /**
+     * generates only the center bubble and the subtree of its first child,
+     *      handing each bubble to the visitor as it is generated;
+     *      when the fractal is symmetric every other child's subtree is the first one turned
+     *      around the center, so this is all a renderer needs to stamp the whole fractal
+     * @param visitor   the visitor each bubble is handed to
+     * @param region    the region of interest, using cartesian system; null for everywhere
+     * @param minRadius the radius below which bubbles, and everything below them, are skipped
+     * @return  true if every bubble in the region was visited, false if the visitor stopped the walk
+     * @throws java.util.concurrent.CancellationException if the fractal is not symmetric,
+     *      see FractalParams.isSymmetric, or settings change before it finishes
+     */
+    public boolean walkSector(FractalVisitor visitor, Rectangle2D region, double minRadius);
+
+    /**
+     * returns the number of bubbles the fractal has, without generating it
+     * @return  the most bubbles getData or walk would produce, before viewport pruning
+     */
+    public long getDataSize();
 
     /**
      * Sets the instance variables (data) of the fractal subject
@@ -45,4 +87,25 @@ public interface FractalSubject {
     public void setParams(int recurseDepth, int childRatio, int childCount, int bedlamLevel,
                           Color color, boolean hasRandomPastels);
 
+    /**
+     * Sets the seed every bubble's pastel and bedlam deviation are derived from;
+     *      the same parameters and seed always give the same fractal
+     * @param seed  the seed of the fractal
+     */
+    public void setSeed(long seed);
+
+    /**
+     * Returns the parameters last given to setParams and setSeed
+     * @return  the current parameters of the fractal subject
+     */
+    public FractalParams getParams();
+
+    /**
+     * Sets the target the fractal is pruned to; a bubble is pruned along with everything below it
+     *      if it is smaller than the minimum radius, or its subtree is wholly outside the viewport
+     * @param viewport  the region that will be drawn, using cartesian system; null to not prune by region
+     * @param minRadius the smallest radius a bubble needs to be visible, 0 to not prune by size
+     */
+    public void setViewport(Rectangle2D viewport, double minRadius);
+
 }
@@ -0,0 +1,21 @@
+import java.awt.Color;
+
+/**
+ * Contains the methods a fractal visitor must contain;
+ *      a visitor is handed each bubble of a fractal as it is walked,
+ *      parents before their children, so the whole fractal never has to be held in memory
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public interface FractalVisitor {
+    /**
+     * Visits one bubble of the fractal; its arc is derived from the same values
+     * @param level     the level of the bubble, 0 being the center bubble
+     * @param xCoord    x coordinate of bubble, using cartesian system
+     * @param yCoord    y coordinate of bubble, using cartesian system
+     * @param radius    radius of bubble
+     * @param color     color of bubble
+     * @return  true if the walk should continue, false if it should stop here
+     */
+    public boolean visit(int level, double xCoord, double yCoord, double radius, Color color);
+}
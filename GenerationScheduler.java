@@ -0,0 +1,134 @@
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+
+/**
+ * Contains code for a generation scheduler, running slow work off the Swing event thread;
+ *      only the latest submitted job matters, so a new job cancels the one in flight,
+ *      jobs still waiting are skipped, and a result is only published if nothing newer was submitted;
+ *      a job that fails is logged and handed to the failure handler, unless it was superseded first
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public class GenerationScheduler {
+
+    /**
+     * Contains the method a job run by the scheduler must contain
+     * @param <T>   the type of the job's result
+     */
+    public interface Job<T> {
+        /**
+         * Runs the job on the scheduler's thread
+         * @param isCancelled   returns true once the job has been superseded,
+         *                          long jobs should check it and give up early
+         * @return  the result to be published
+         * @throws Exception if the job fails
+         */
+        public T run(BooleanSupplier isCancelled) throws Exception;
+    }
+
+    /**
+     * Contains the method a progressive job run by the scheduler must contain,
+     *      a job that can show rough results while it works towards the final one
+     * @param <T>   the type of the job's results
+     */
+    public interface ProgressiveJob<T> {
+        /**
+         * Runs the job on the scheduler's thread
+         * @param isCancelled   returns true once the job has been superseded,
+         *                          long jobs should check it and give up early
+         * @param frames        publishes a rough result while the job goes on,
+         *                          skipped the same as the final result if the job is superseded
+         * @return  the final result to be published
+         * @throws Exception if the job fails
+         */
+        public T run(BooleanSupplier isCancelled, Consumer<T> frames) throws Exception;
+    }
+
+    /** where failed jobs are logged */
+    private static final Logger LOGGER = Logger.getLogger(GenerationScheduler.class.getName());
+
+    /** the thread jobs run on */
+    private final ExecutorService executor;
+    /** what to do with a job's failure, run on the event thread */
+    private final Consumer<Exception> failureHandler;
+    /** the ticket of the latest submitted job */
+    private final AtomicLong latestTicket;
+    /** the latest submitted job, null if there has been none */
+    private Future<?> inFlight;
+
+    /**
+     * Constructor for a generation scheduler
+     * @param threadName      the name of the thread jobs run on
+     * @param failureHandler  what to do with a job's failure, run on the event thread, usually showing it
+     */
+    public GenerationScheduler(String threadName, Consumer<Exception> failureHandler) {
+        this.failureHandler = failureHandler;
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        latestTicket = new AtomicLong();
+    }
+
+    /**
+     * Submits a job, superseding every job submitted before it;
+     *      its result is handed to the publisher on the Swing event thread,
+     *      unless the job was superseded first
+     * @param job       the job to run off the event thread
+     * @param publisher what to do with the result, run on the event thread
+     * @param <T>       the type of the job's result
+     */
+    public <T> void submit(Job<T> job, Consumer<T> publisher) {
+        submitProgressive((isCancelled, frames) -> job.run(isCancelled), publisher);
+    }
+
+    /**
+     * Submits a progressive job, superseding every job submitted before it;
+     *      its rough and final results are each handed to the publisher on the Swing event thread,
+     *      unless the job was superseded first
+     * @param job       the job to run off the event thread
+     * @param publisher what to do with each result, run on the event thread
+     * @param <T>       the type of the job's results
+     */
+    public synchronized <T> void submitProgressive(ProgressiveJob<T> job, Consumer<T> publisher) {
+        long ticket = latestTicket.incrementAndGet();
+        BooleanSupplier isCancelled = () -> latestTicket.get() != ticket;
+        if (inFlight != null) {
+            inFlight.cancel(true);
+        }
+        inFlight = executor.submit(() -> {
+            if (isCancelled.getAsBoolean()) {
+                return;     //coalesced into a newer job before it started
+            }
+            Consumer<T> guardedPublisher = result -> SwingUtilities.invokeLater(() -> {
+                if (!isCancelled.getAsBoolean()) {
+                    publisher.accept(result);
+                }
+            });
+            try {
+                guardedPublisher.accept(job.run(isCancelled, guardedPublisher));
+            } catch (CancellationException | InterruptedException e) {
+                //superseded while running, the newer job will publish instead
+            } catch (Exception e) {
+                if (!isCancelled.getAsBoolean()) {
+                    LOGGER.log(Level.WARNING, "job failed", e);
+                    FractalMetrics.increment("job.failed");
+                    SwingUtilities.invokeLater(() -> {
+                        if (!isCancelled.getAsBoolean()) {
+                            failureHandler.accept(e);
+                        }
+                    });
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,90 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Contains code for a least recently used cache of fractal geometry;
+ *      bounded by both the number of geometries and the bubbles they hold in total
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public class GeometryCache {
+
+    /** the most geometries kept */
+    private final int maxEntries;
+    /** the most bubbles kept across every geometry */
+    private final long maxBubbles;
+    /** the cached geometries, least recently used first */
+    private final LinkedHashMap<GeometryKey, FractalGeometry> entries;
+    /** the number of bubbles across every cached geometry */
+    private long bubbleCount;
+
+    /**
+     * Constructor for a geometry cache
+     * @param maxEntries    the most geometries kept
+     * @param maxBubbles    the most bubbles kept across every geometry
+     */
+    public GeometryCache(int maxEntries, long maxBubbles) {
+        this.maxEntries = maxEntries;
+        this.maxBubbles = maxBubbles;
+        entries = new LinkedHashMap<>(16, .75f, true);
+    }
+
+    /**
+     * Returns the cached geometry for a key, marking it most recently used
+     * @param key   the settings the geometry was generated from
+     * @return  the cached geometry, or null if there is none
+     */
+    public synchronized FractalGeometry get(GeometryKey key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Returns the deepest cached geometry with the same shape as a key,
+     *      marking it most recently used
+     * @param key   the settings to match, all but the recursion depth
+     * @return  the deepest cached geometry of that shape, or null if there is none
+     */
+    public synchronized FractalGeometry getDeepest(GeometryKey key) {
+        GeometryKey deepestKey = null;
+        for (GeometryKey cachedKey : entries.keySet()) {
+            if (cachedKey.hasSameShape(key)
+                    && (deepestKey == null || cachedKey.getRecurseDepth() > deepestKey.getRecurseDepth())) {
+                deepestKey = cachedKey;
+            }
+        }
+        return deepestKey == null ? null : entries.get(deepestKey);
+    }
+
+    /**
+     * Caches a geometry, evicting the least recently used ones if the cache is full;
+     *      a geometry larger than the whole cache is not kept
+     * @param key       the settings the geometry was generated from
+     * @param geometry  the geometry to cache
+     */
+    public synchronized void put(GeometryKey key, FractalGeometry geometry) {
+        if (geometry.size() > maxBubbles) {
+            return;
+        }
+        FractalGeometry replaced = entries.put(key, geometry);
+        if (replaced != null) {
+            bubbleCount -= replaced.size();
+        }
+        bubbleCount += geometry.size();
+
+        Iterator<Map.Entry<GeometryKey, FractalGeometry>> iterator = entries.entrySet().iterator();
+        while (entries.size() > maxEntries || bubbleCount > maxBubbles) {
+            Map.Entry<GeometryKey, FractalGeometry> eldest = iterator.next();
+            bubbleCount -= eldest.getValue().size();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Removes every cached geometry
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bubbleCount = 0;
+    }
+}
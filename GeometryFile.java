@@ -0,0 +1,322 @@
+import java.awt.Color;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Contains the code for fractal geometry kept in a memory-mapped file rather than on the heap,
+ *      for fractals too large to hold in memory;
+ *      the file is a header followed by one fixed-width record per bubble slot,
+ *      grouped by recursion level the same way as FractalGeometry,
+ *      so a bubble's record is found by arithmetic alone and read in place from the mapping;
+ *      the header holds the settings the geometry was generated with,
+ *      so a finished file can be reopened and reused instead of generated again
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public class GeometryFile implements GeometrySink, FractalSource {
+
+    /** the first four bytes of every geometry file, "BUBL" */
+    private static final int MAGIC = 0x4255424C;
+    /** the version of the record format, bumped whenever the layout changes */
+    private static final int FORMAT_VERSION = 2;
+    /** the number of bytes before the first record */
+    private static final int HEADER_BYTES = 128;
+    /** the number of bytes in a record, a power of two so doubles stay aligned */
+    private static final int RECORD_BYTES = 32;
+    /** log2 of the number of records mapped at a time, keeping each mapping under 2GB */
+    private static final int SEGMENT_SHIFT = 25;
+    /** the color index of a slot with no bubble in it, which every slot starts as */
+    private static final byte ABSENT = 0;
+
+    //header layout
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int DEPTH_OFFSET = 8;
+    private static final int RATIO_OFFSET = 12;
+    private static final int COUNT_OFFSET = 16;
+    private static final int BEDLAM_OFFSET = 20;
+    private static final int COMPLETE_OFFSET = 24;
+    private static final int HAS_VIEWPORT_OFFSET = 28;
+    private static final int MIN_RADIUS_OFFSET = 32;
+    private static final int VIEWPORT_OFFSET = 40;
+    private static final int SEED_OFFSET = 72;
+
+    //record layout
+    private static final int X_OFFSET = 0;
+    private static final int Y_OFFSET = 8;
+    private static final int RADIUS_OFFSET = 16;
+    private static final int COLOR_OFFSET = 24;
+
+    /** the settings the geometry was generated with */
+    private final GeometryKey key;
+    /** the number of records before each level's first record */
+    private final long[] levelOffsets;
+    /** the header, mapped on its own */
+    private final MappedByteBuffer header;
+    /** the records, mapped 2^SEGMENT_SHIFT at a time */
+    private final MappedByteBuffer[] segments;
+    /** the colors a bubble's color index refers to, one per pastel */
+    private final Color[] palette;
+
+    /**
+     * Private constructor for a geometry file whose mappings are already made
+     * @param key       the settings the geometry was generated with
+     * @param header    the header, mapped on its own
+     * @param segments  the records, mapped 2^SEGMENT_SHIFT at a time
+     * @param palette   the colors a bubble's color index refers to, one per pastel
+     */
+    private GeometryFile(GeometryKey key, MappedByteBuffer header, MappedByteBuffer[] segments, Color[] palette) {
+        this.key = key;
+        this.header = header;
+        this.segments = segments;
+        this.palette = palette;
+        levelOffsets = new long[key.getRecurseDepth() + 1];
+        for (int level = 0; level < key.getRecurseDepth(); level++) {
+            levelOffsets[level + 1] = FractalGeometry.nodeCount(level + 1, key.getChildCount());
+        }
+    }
+
+    //------------------------------------------------------------------------
+    //                      Static Methods
+    //------------------------------------------------------------------------
+
+    /**
+     * Creates an empty geometry file, sized for a full tree, replacing any file already there;
+     *      the file is sparse where the filesystem allows, so slots never written take no space
+     * @param path      where the file is written
+     * @param key       the settings the geometry will be generated with
+     * @param palette   the colors a bubble's color index refers to, one per pastel
+     * @return  the empty geometry, every slot absent until set
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public static GeometryFile create(Path path, GeometryKey key, Color[] palette) throws IOException {
+        long records = FractalGeometry.nodeCount(key.getRecurseDepth(), key.getChildCount());
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.SPARSE)) {
+            MappedByteBuffer header = map(channel, FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.putInt(MAGIC_OFFSET, MAGIC);
+            header.putInt(VERSION_OFFSET, FORMAT_VERSION);
+            header.putInt(DEPTH_OFFSET, key.getRecurseDepth());
+            header.putInt(RATIO_OFFSET, key.getChildRatio());
+            header.putInt(COUNT_OFFSET, key.getChildCount());
+            header.putInt(BEDLAM_OFFSET, key.getBedlamLevel());
+            header.putLong(SEED_OFFSET, key.getSeed());
+            header.putInt(COMPLETE_OFFSET, 0);
+            header.putDouble(MIN_RADIUS_OFFSET, key.getMinRadius());
+            Rectangle2D viewport = key.getViewport();
+            header.putInt(HAS_VIEWPORT_OFFSET, viewport == null ? 0 : 1);
+            if (viewport != null) {
+                header.putDouble(VIEWPORT_OFFSET, viewport.getX());
+                header.putDouble(VIEWPORT_OFFSET + 8, viewport.getY());
+                header.putDouble(VIEWPORT_OFFSET + 16, viewport.getWidth());
+                header.putDouble(VIEWPORT_OFFSET + 24, viewport.getHeight());
+            }
+            return new GeometryFile(key, header,
+                                    mapSegments(channel, FileChannel.MapMode.READ_WRITE, records), palette);
+        }
+    }
+
+    /**
+     * Opens a geometry file written earlier, mapping it without reading the records
+     * @param path      where the file is
+     * @param palette   the colors a bubble's color index refers to, one per pastel
+     * @return  the geometry in the file
+     * @throws IOException if the file cannot be mapped, is not a geometry file, or is cut short
+     */
+    public static GeometryFile open(Path path, Color[] palette) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException(path + " is not a geometry file");
+            }
+            MappedByteBuffer header = map(channel, FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt(MAGIC_OFFSET) != MAGIC) {
+                throw new IOException(path + " is not a geometry file");
+            }
+            if (header.getInt(VERSION_OFFSET) != FORMAT_VERSION) {
+                throw new IOException(path + " has record format " + header.getInt(VERSION_OFFSET)
+                        + ", expected " + FORMAT_VERSION);
+            }
+            Rectangle2D viewport = null;
+            if (header.getInt(HAS_VIEWPORT_OFFSET) != 0) {
+                viewport = new Rectangle2D.Double(header.getDouble(VIEWPORT_OFFSET),
+                                                  header.getDouble(VIEWPORT_OFFSET + 8),
+                                                  header.getDouble(VIEWPORT_OFFSET + 16),
+                                                  header.getDouble(VIEWPORT_OFFSET + 24));
+            }
+            GeometryKey key = new GeometryKey(header.getInt(DEPTH_OFFSET), header.getInt(RATIO_OFFSET),
+                                              header.getInt(COUNT_OFFSET), header.getInt(BEDLAM_OFFSET),
+                                              header.getLong(SEED_OFFSET), viewport, header.getDouble(MIN_RADIUS_OFFSET));
+
+            long records = FractalGeometry.nodeCount(key.getRecurseDepth(), key.getChildCount());
+            if (channel.size() < HEADER_BYTES + records * RECORD_BYTES) {
+                throw new IOException(path + " is cut short, expected " + records + " records");
+            }
+            return new GeometryFile(key, header,
+                                    mapSegments(channel, FileChannel.MapMode.READ_ONLY, records), palette);
+        }
+    }
+
+    /**
+     * Private method to create and open;
+     *      maps the records in segments, every segment but the last holding 2^SEGMENT_SHIFT records
+     * @param channel   the file's channel, which may be closed once mapped
+     * @param mode      whether the records are mapped to read or to write
+     * @param records   the number of records in the file
+     * @return  the mapped segments, in order
+     * @throws IOException if the records cannot be mapped
+     */
+    private static MappedByteBuffer[] mapSegments(FileChannel channel, FileChannel.MapMode mode, long records)
+            throws IOException {
+        int segmentCount = (int) ((records + (1L << SEGMENT_SHIFT) - 1) >>> SEGMENT_SHIFT);
+        MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+        for (int segment = 0; segment < segmentCount; segment++) {
+            long firstRecord = (long) segment << SEGMENT_SHIFT;
+            long segmentRecords = Math.min(1L << SEGMENT_SHIFT, records - firstRecord);
+            segments[segment] = map(channel, mode, HEADER_BYTES + firstRecord * RECORD_BYTES,
+                                    segmentRecords * RECORD_BYTES);
+        }
+        return segments;
+    }
+
+    /**
+     * Private method to create and open; maps part of the file, little endian whatever the platform
+     * @param channel   the file's channel
+     * @param mode      whether the part is mapped to read or to write
+     * @param position  the byte the part starts at
+     * @param size      the number of bytes in the part
+     * @return  the mapped part
+     * @throws IOException if the part cannot be mapped
+     */
+    private static MappedByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long position, long size)
+            throws IOException {
+        MappedByteBuffer buffer = channel.map(mode, position, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    //------------------------------------------------------------------------
+    //                      Instance Methods
+    //------------------------------------------------------------------------
+
+    /**
+     * @inheritdoc
+     *      records are written in place through the mapping; generator tasks write to disjoint slots,
+     *      so they share it without locking
+     */
+    @Override
+    public void set(int level, long index, double xCoord, double yCoord, double radius, int colorIndex) {
+        long record = levelOffsets[level] + index;
+        MappedByteBuffer segment = segments[(int) (record >>> SEGMENT_SHIFT)];
+        int offset = (int) (record & ((1L << SEGMENT_SHIFT) - 1)) * RECORD_BYTES;
+        segment.putDouble(offset + X_OFFSET, xCoord);
+        segment.putDouble(offset + Y_OFFSET, yCoord);
+        segment.putDouble(offset + RADIUS_OFFSET, radius);
+        segment.put(offset + COLOR_OFFSET, (byte) (colorIndex + 1));
+    }
+
+    /**
+     * Flushes every record to disk, then marks the file complete so it can be reused;
+     *      a file whose generation stopped partway is never marked complete
+     */
+    public void finish() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        header.putInt(COMPLETE_OFFSET, 1);
+        header.force();
+    }
+
+    /**
+     * @return  true if every bubble was generated and flushed to disk
+     */
+    public boolean isComplete() {
+        return header.getInt(COMPLETE_OFFSET) != 0;
+    }
+
+    /**
+     * Returns this geometry recolored; the mappings are shared, not copied
+     * @param newPalette    the colors a bubble's color index refers to, one per pastel
+     * @return  a geometry reading the same file, colored by the new palette
+     */
+    public GeometryFile withPalette(Color[] newPalette) {
+        return new GeometryFile(key, header, segments, newPalette);
+    }
+
+    /**
+     * @return  the settings the geometry was generated with
+     */
+    public GeometryKey getKey() {
+        return key;
+    }
+
+    /**
+     * @return  the number of bubble slots stored, counting pruned ones
+     */
+    public long size() {
+        return levelOffsets[levelOffsets.length - 1];
+    }
+
+    /**
+     * Hands every bubble to the visitor, parents before their children,
+     *      in the same order the elements were originally generated
+     * @param visitor   the visitor each bubble is handed to
+     * @return  true if every bubble was visited, false if the visitor stopped the walk
+     */
+    public boolean walk(FractalVisitor visitor) {
+        return walk(visitor, null, 0);
+    }
+
+    /**
+     * @inheritdoc
+     *      pruned bubbles and everything below them are skipped too
+     */
+    @Override
+    public boolean walk(FractalVisitor visitor, Rectangle2D region, double minRadius) {
+        return key.getRecurseDepth() == 0 || walk(visitor, region, minRadius, 0, 0);
+    }
+
+    /**
+     * Private recursive method to walk;
+     *      reads a bubble in place, visits it, then each of its children
+     * @param visitor   the visitor each bubble is handed to
+     * @param region    the region of interest, subtrees outside it are skipped; null if nothing is skipped
+     * @param minRadius the radius below which bubbles, and everything below them, are skipped
+     * @param level     the level of the bubble to be visited
+     * @param index     the index of the bubble within its level
+     * @return  true if the walk should continue, false if the visitor stopped it
+     */
+    private boolean walk(FractalVisitor visitor, Rectangle2D region, double minRadius, int level, long index) {
+        long record = levelOffsets[level] + index;
+        MappedByteBuffer segment = segments[(int) (record >>> SEGMENT_SHIFT)];
+        int offset = (int) (record & ((1L << SEGMENT_SHIFT) - 1)) * RECORD_BYTES;
+        byte colorIndex = segment.get(offset + COLOR_OFFSET);
+        double radius = segment.getDouble(offset + RADIUS_OFFSET);
+        if (colorIndex == ABSENT || radius < minRadius) {
+            return true;
+        }
+        double xCoord = segment.getDouble(offset + X_OFFSET);
+        double yCoord = segment.getDouble(offset + Y_OFFSET);
+        if (region != null && !FractalGenerator.intersects(region, xCoord, yCoord,
+                FractalGenerator.subtreeExtent(radius, key.getChildRatio(), key.getBedlamLevel()))) {
+            return true;
+        }
+        if (!visitor.visit(level, xCoord, yCoord, radius, palette[colorIndex - 1])) {
+            return false;
+        }
+
+        if (level + 1 < key.getRecurseDepth()) {
+            long firstChild = index * key.getChildCount();
+            for (int child = 0; child < key.getChildCount(); child++) {
+                if (!walk(visitor, region, minRadius, level + 1, firstChild + child)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
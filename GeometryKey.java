@@ -0,0 +1,132 @@
+import java.awt.geom.Rectangle2D;
+import java.util.Objects;
+
+/**
+ * Contains code for a geometry key, the settings a fractal's geometry depends on,
+ *      including the viewport and minimum radius it was pruned to;
+ *      color settings are left out because they never change where a bubble goes
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public class GeometryKey {
+
+    /** the number of times the fractal will recurse */
+    private final int recurseDepth;
+    /** the ratio of a child to its parent */
+    private final int childRatio;
+    /** the number of children a parent will have */
+    private final int childCount;
+    /** the level of deviation of each bubble */
+    private final int bedlamLevel;
+    /** the seed every bubble's pastel and deviation are derived from */
+    private final long seed;
+    /** the region subtrees were pruned to, using cartesian system; null if none */
+    private final Rectangle2D viewport;
+    /** the radius below which bubbles were pruned */
+    private final double minRadius;
+
+    /**
+     * Constructor for a geometry key
+     * @param recurseDepth  the number of times the fractal will recurse
+     * @param childRatio    the ratio of a child to its parent
+     * @param childCount    the number of children a parent will have
+     * @param bedlamLevel   the level of deviation of each bubble
+     * @param seed          the seed every bubble's pastel and deviation are derived from
+     * @param viewport      the region subtrees were pruned to, using cartesian system; null if none
+     * @param minRadius     the radius below which bubbles were pruned
+     */
+    public GeometryKey(int recurseDepth, int childRatio, int childCount, int bedlamLevel, long seed,
+                       Rectangle2D viewport, double minRadius) {
+        this.recurseDepth = recurseDepth;
+        this.childRatio = childRatio;
+        this.childCount = childCount;
+        this.bedlamLevel = bedlamLevel;
+        this.seed = seed;
+        this.viewport = viewport == null ? null : (Rectangle2D) viewport.clone();
+        this.minRadius = minRadius;
+    }
+
+    /**
+     * @return  the number of times the fractal will recurse
+     */
+    public int getRecurseDepth() {
+        return recurseDepth;
+    }
+
+    /**
+     * @return  the ratio of a child to its parent
+     */
+    public int getChildRatio() {
+        return childRatio;
+    }
+
+    /**
+     * @return  the number of children a parent will have
+     */
+    public int getChildCount() {
+        return childCount;
+    }
+
+    /**
+     * @return  the level of deviation of each bubble
+     */
+    public int getBedlamLevel() {
+        return bedlamLevel;
+    }
+
+    /**
+     * @return  the seed every bubble's pastel and deviation are derived from
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return  the region subtrees were pruned to, using cartesian system; null if none
+     */
+    public Rectangle2D getViewport() {
+        return viewport == null ? null : (Rectangle2D) viewport.clone();
+    }
+
+    /**
+     * @return  the radius below which bubbles were pruned
+     */
+    public double getMinRadius() {
+        return minRadius;
+    }
+
+    /**
+     * Checks whether another key has the same shape, differing at most in depth;
+     *      the shallower of two such geometries is exactly the top levels of the deeper one
+     * @param other the key to compare to
+     * @return  true if every setting but the recursion depth matches
+     */
+    public boolean hasSameShape(GeometryKey other) {
+        return childRatio == other.childRatio && childCount == other.childCount
+                && bedlamLevel == other.bedlamLevel && seed == other.seed && Objects.equals(viewport, other.viewport)
+                && minRadius == other.minRadius;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof GeometryKey)) {
+            return false;
+        }
+        GeometryKey key = (GeometryKey) other;
+        return recurseDepth == key.recurseDepth && hasSameShape(key);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(recurseDepth, childRatio, childCount, bedlamLevel, seed, viewport, minRadius);
+    }
+
+    @Override
+    public String toString() {
+        return "depth=" + recurseDepth + " ratio=" + childRatio
+                + " count=" + childCount + " bedlam=" + bedlamLevel + " seed=" + seed;
+    }
+}
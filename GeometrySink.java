@@ -0,0 +1,19 @@
+/**
+ * Contains methods that must be present in a GeometrySink,
+ *      somewhere the generator can store bubbles as it places them
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public interface GeometrySink {
+
+    /**
+     * Stores a bubble; a bubble at (level, index) has its children at (level + 1, index * childCount + child)
+     * @param level         the level of the bubble
+     * @param index         the index of the bubble within its level
+     * @param xCoord        x coordinate of bubble, using cartesian system
+     * @param yCoord        y coordinate of bubble, using cartesian system
+     * @param radius        radius of bubble
+     * @param colorIndex    index into the palette of the bubble's color
+     */
+    public void set(int level, long index, double xCoord, double yCoord, double radius, int colorIndex);
+}
@@ -0,0 +1,82 @@
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Contains code for a headless renderer, drawing a fractal to a PNG without any windows,
+ *      either straight from a subject or from geometry kept in a file;
+ *      the image is drawn in horizontal strips, each streamed into the PNG before the next is drawn,
+ *      so peak memory is set by the strip height rather than the size of the image;
+ *      each strip is drawn by a SpanRasterizer, split into bands across the processors
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public class HeadlessRenderer {
+
+    /** the most bytes the pixels of one strip will take up */
+    private static final long STRIP_BYTES = 32L << 20;
+
+    /** where the bubbles of the fractal drawn come from */
+    private FractalSource source;
+    /** the color of the background behind the fractal */
+    private Color background;
+
+    /**
+     * Constructor for a headless renderer
+     * @param source        where the bubbles of the fractal drawn come from
+     * @param background    the color of the background behind the fractal
+     */
+    public HeadlessRenderer(FractalSource source, Color background) {
+        this.source = source;
+        this.background = background;
+    }
+
+    /**
+     * Draws the fractal as a PNG, scaled up or down so it fills the image
+     *      the way it fills the FractalDrawing window
+     * @param out       the stream the PNG is written to, left open
+     * @param width     width of the image in pixels
+     * @param height    height of the image in pixels
+     * @throws IOException if the PNG cannot be written
+     */
+    public void render(OutputStream out, int width, int height) throws IOException {
+        render(out, width, height, () -> false);
+    }
+
+    /**
+     * Draws the fractal as a PNG, the same as render, unless it is no longer wanted partway
+     * @param out           the stream the PNG is written to, left open
+     * @param width         width of the image in pixels
+     * @param height        height of the image in pixels
+     * @param isCancelled   returns true once the image is no longer wanted, checked once per bubble
+     * @return  true if the whole PNG was written, false if it was cancelled, leaving what was written unfinished
+     * @throws IOException if the PNG cannot be written
+     */
+    public boolean render(OutputStream out, int width, int height, BooleanSupplier isCancelled) throws IOException {
+        Dimension imageSize = new Dimension(width, height);
+        double scale = Math.min((double) width / FractalDrawing.WINDOW_DIMENSION.width,
+                                (double) height / FractalDrawing.WINDOW_DIMENSION.height);
+        int stripHeight = (int) Math.max(1, Math.min(height, STRIP_BYTES / (4L * width)));
+
+        PngStripWriter writer = new PngStripWriter(out, width, height);
+        BufferedImage strip = new BufferedImage(width, stripHeight, BufferedImage.TYPE_INT_RGB);
+        int[] stripPixels = ((DataBufferInt) strip.getRaster().getDataBuffer()).getData();
+        SpanRasterizer rasterizer = new SpanRasterizer(imageSize, scale);
+        for (int stripTop = 0; stripTop < height; stripTop += stripHeight) {
+            int rowCount = Math.min(stripHeight, height - stripTop);
+            Arrays.fill(stripPixels, background.getRGB());
+            if (!rasterizer.draw(source, strip, stripTop, rowCount, isCancelled)) {
+                writer.abandon();
+                return false;
+            }
+            writer.writeStrip(strip, rowCount);
+        }
+        writer.finish();
+        return true;
+    }
+}
@@ -1,3 +1,12 @@
+import java.awt.Color;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 /**
  * Contains code for the main class to set off the whole thing
  * @author  Milo Bowles
@@ -5,14 +14,175 @@
  */
 public class Main {
 
+    /** the port the server listens on unless another is given */
+    private static final int DEFAULT_PORT = 8080;
+    /** the address the server listens on unless another is given, only reachable from this machine */
+    private static final String DEFAULT_ADDRESS = "127.0.0.1";
+    /** how to run the program, printed when the arguments are not understood */
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "usage: Main [--atlas <file>]",
+            "           opens the settings and drawing windows;",
+            "           with an atlas, fractals it holds are looked up instead of drawn",
+            "       Main --render <file.png> <width>x<height> <recurseDepth> <childRatio> <childCount>",
+            "            <bedlamLevel> <color> <hasRandomPastels> [--seed <seed>] [--geometry <file>]",
+            "           draws the fractal to a PNG without any windows,",
+            "           color is hex such as FF0000, hasRandomPastels is true or false;",
+            "           the same seed always draws the same fractal, " + FractalGenerator.DEFAULT_SEED
+                    + " if none is given;",
+            "           with a geometry file the fractal is generated into it, or reused from it",
+            "           if it already holds the same settings, instead of generated while drawing",
+            "       Main --svg <file.svg> <width>x<height> <recurseDepth> <childRatio> <childCount>",
+            "            <bedlamLevel> <color> <hasRandomPastels> [--seed <seed>]",
+            "           writes the fractal as vector graphics, laid out the same as --render;",
+            "           without bedlam or random pastels each level is written once and reused",
+            "       Main --serve [<port>] [<address>]",
+            "           serves PNGs over HTTP without any windows, on port " + DEFAULT_PORT + " of "
+                    + DEFAULT_ADDRESS + " if none are given;",
+            "           GET " + RenderServer.RENDER_PATH + "?width=&height=&depth=&ratio=&count=&bedlam="
+                    + "&color=&pastels=&seed=",
+            "           takes the same values as --render",
+            "       Main --build-atlas <file> <color> <hasRandomPastels> [--seed <seed>]",
+            "           draws every fractal the sliders can choose with those colors into an atlas,",
+            "           " + FractalAtlas.ENTRY_COUNT + " images, which takes a long while");
+
     /**
-     * Setups up subject/observer model and initial handshakes between
-     * @param args      NO IDEA WHAT TO PUT HERE
+     * Setups up subject/observer model and initial handshakes between,
+     *      or renders a single image without windows if asked to
+     * @param args      none to open the windows, or the options listed in USAGE
      */
     public static void main(String[] args) {
+        if (args.length == 0) {
+            FractalGenerator fg = new FractalGenerator();
+            FractalDrawing fd = new FractalDrawing(fg);
+            FractalGui gui = new FractalGui(fg);
+        } else if (args[0].equals("--atlas") && args.length == 2) {
+            FractalAtlas atlas = null;
+            try {
+                atlas = FractalAtlas.open(Paths.get(args[1]));
+            } catch (IOException e) {
+                System.err.println("could not open the atlas, drawing every fractal instead: " + e.getMessage());
+            }
+            FractalGenerator fg = new FractalGenerator();
+            FractalDrawing fd = new FractalDrawing(fg, atlas);
+            FractalGui gui = new FractalGui(fg);
+        } else if (args[0].equals("--build-atlas") && (args.length == 4 || args.length == 6)) {
+            System.setProperty("java.awt.headless", "true");
+            try {
+                buildAtlas(args);
+            } catch (IOException e) {
+                System.err.println("could not build " + args[1] + ": " + e.getMessage());
+                System.exit(1);
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+                System.err.println(USAGE);
+                System.exit(2);
+            }
+        } else if ((args[0].equals("--render") || args[0].equals("--svg")) && args.length >= 9) {
+            System.setProperty("java.awt.headless", "true");
+            try {
+                render(args);
+            } catch (IOException e) {
+                System.err.println("could not render " + args[1] + ": " + e.getMessage());
+                System.exit(1);
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+                System.err.println(USAGE);
+                System.exit(2);
+            }
+        } else if (args[0].equals("--serve") && args.length <= 3) {
+            System.setProperty("java.awt.headless", "true");
+            try {
+                serve(args);
+            } catch (IOException e) {
+                System.err.println("could not start the server: " + e.getMessage());
+                System.exit(1);
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+                System.err.println(USAGE);
+                System.exit(2);
+            }
+        } else {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Builds an atlas from the --build-atlas arguments
+     * @param args  the --build-atlas arguments, in the order listed in USAGE
+     * @throws IOException if the atlas cannot be written
+     */
+    private static void buildAtlas(String[] args) throws IOException {
+        long seed = FractalGenerator.DEFAULT_SEED;
+        if (args.length == 6) {
+            if (!args[4].equals("--seed")) {
+                throw new IllegalArgumentException("unknown option: " + args[4]);
+            }
+            seed = Long.parseLong(args[5]);
+        }
+        long start = System.nanoTime();
+        FractalAtlas.build(Paths.get(args[1]), Color.decode("#" + args[2]), Boolean.parseBoolean(args[3]), seed,
+                           Color.BLACK, System.out);
+        System.out.println("built " + args[1] + " in " + (System.nanoTime() - start) / 1_000_000_000 + "s");
+    }
+
+    /**
+     * Starts a render server from the --serve arguments, which runs until the program is stopped
+     * @param args  the --serve arguments, in the order listed in USAGE
+     * @throws IOException if the server cannot listen on the address
+     */
+    private static void serve(String[] args) throws IOException {
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+        String address = args.length > 2 ? args[2] : DEFAULT_ADDRESS;
+        RenderServer server = new RenderServer(new InetSocketAddress(address, port));
+        server.start();
+        System.out.println("serving fractals at http://" + address + ":" + server.getAddress().getPort()
+                           + RenderServer.RENDER_PATH);
+    }
+
+    /**
+     * Renders a single PNG from the --render arguments, or SVG from the --svg arguments
+     * @param args  the --render or --svg arguments, in the order listed in USAGE
+     * @throws IOException if the image or geometry file cannot be written
+     */
+    private static void render(String[] args) throws IOException {
+        String[] size = args[2].split("x");
+        if (size.length != 2) {
+            throw new IllegalArgumentException("size must be <width>x<height>: " + args[2]);
+        }
+        int width = Integer.parseInt(size[0]);
+        int height = Integer.parseInt(size[1]);
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("size must be positive: " + args[2]);
+        }
+
         FractalGenerator fg = new FractalGenerator();
-        FractalDrawing fd = new FractalDrawing(fg);
-        FractalGui gui = new FractalGui(fg);
+        fg.setParams(Integer.parseInt(args[3]), Integer.parseInt(args[4]), Integer.parseInt(args[5]),
+                     Integer.parseInt(args[6]), Color.decode("#" + args[7]), Boolean.parseBoolean(args[8]));
+
+        Path geometryPath = null;
+        for (int i = 9; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException(args[i] + " needs a value");
+            }
+            if (args[i].equals("--seed")) {
+                fg.setSeed(Long.parseLong(args[i + 1]));
+            } else if (args[i].equals("--geometry") && args[0].equals("--render")) {
+                geometryPath = Paths.get(args[i + 1]);
+            } else {
+                throw new IllegalArgumentException("unknown option: " + args[i]);
+            }
+        }
+        if (args[0].equals("--svg")) {
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(args[1]))) {
+                new SvgExporter(fg, Color.BLACK).export(out, width, height);
+            }
+            return;
+        }
+        FractalSource source = geometryPath == null ? fg : fg.getData(geometryPath);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(args[1]))) {
+            new HeadlessRenderer(source, Color.BLACK).render(out, width, height);
+        }
     }
 
 }
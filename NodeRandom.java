@@ -0,0 +1,70 @@
+/**
+ * Contains the code for the random numbers of a fractal's bubbles;
+ *      every number is derived from the fractal's seed and the bubble's place in the tree alone,
+ *      using the SplitMix64 mixing function, so any bubble's numbers can be worked out
+ *      on any thread, in any order, without sharing a random number generator;
+ *      the same seed always gives the same fractal, however it is generated
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public final class NodeRandom {
+
+    /** the golden ratio increment SplitMix64 steps its state by */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    /** the stream a bubble's pastel is picked from */
+    public static final int PASTEL = 1;
+    /** the stream a bubble's angle around its parent is jittered from */
+    public static final int ANGLE = 2;
+    /** the stream a bubble's radius is jittered from */
+    public static final int RADIUS = 3;
+
+    /**
+     * Private constructor, only static methods are used
+     */
+    private NodeRandom() {
+    }
+
+    /**
+     * Returns the seed of one bubble; a bubble at (level, index) is the only one with that seed,
+     *      as a bubble's index within its level already encodes its path from the center
+     * @param seed  the fractal's seed
+     * @param level the level of the bubble
+     * @param index the index of the bubble within its level
+     * @return  the seed of the bubble
+     */
+    public static long nodeSeed(long seed, int level, long index) {
+        return mix(mix(seed + level * GOLDEN_GAMMA) + index * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Returns a uniformly distributed number for a bubble, one per stream
+     * @param nodeSeed  the seed of the bubble
+     * @param stream    which of the bubble's numbers to return, such as PASTEL
+     * @return  a number at least 0 and less than 1
+     */
+    public static double nextDouble(long nodeSeed, int stream) {
+        return (mix(nodeSeed + stream * GOLDEN_GAMMA) >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Returns a uniformly distributed whole number for a bubble, one per stream
+     * @param nodeSeed  the seed of the bubble
+     * @param stream    which of the bubble's numbers to return, such as PASTEL
+     * @param bound     the number of values to pick from
+     * @return  a number at least 0 and less than bound
+     */
+    public static int nextInt(long nodeSeed, int stream, int bound) {
+        return (int) (((mix(nodeSeed + stream * GOLDEN_GAMMA) >>> 32) * bound) >>> 32);
+    }
+
+    /**
+     * The SplitMix64 finalizer, scrambling every bit of the input into every bit of the output
+     * @param z the value to scramble
+     * @return  the scrambled value
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,205 @@
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Contains code for a palette raster, a fractal drawn as coverage of pastel picks rather than colors,
+ *      so it can be recolored without being drawn again;
+ *      each pixel holds what was last drawn over it opaquely, the background, an arc,
+ *      or the outline of a bubble with some pick, and how much of that still shows through the
+ *      translucent fills drawn over it since, along with how much of the pixel each pick's fills make up;
+ *      the pixel's color is those amounts of the colors the picks stand for, so recoloring
+ *      is one pass over the pixels, however many bubbles there are
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public class PaletteRaster {
+
+    /** the base of a pixel with only the background under its fills */
+    private static final byte BACKGROUND_BASE = 0;
+    /** the base of a pixel last drawn over by an arc */
+    private static final byte ARC_BASE = 1;
+    /** the base of a pixel last drawn over by the outline of a bubble with pick 0 */
+    private static final byte OUTLINE_BASE = 2;
+    /** the number of amounts kept per pixel, how much its base shows then how much of each pick */
+    private static final int LAYERS = StyleTable.PASTELS.length + 1;
+    /** the amount of a pixel that is wholly one thing */
+    private static final int WHOLE = 0xFFFF;
+    /** the opacity of a fill out of 255, the same as it is drawn with */
+    private static final int FILL_ALPHA = Math.round(StyleTable.FILL_ALPHA * 255);
+    /** the amount of a pixel a fill makes up */
+    private static final int FILL_AMOUNT = (WHOLE * FILL_ALPHA + 127) / 255;
+
+    /** the settings of the fractal drawn */
+    private final FractalParams params;
+    /** width of the raster in pixels */
+    private final int width;
+    /** height of the raster in pixels */
+    private final int height;
+    /** what was last drawn over each pixel opaquely, row by row */
+    private final byte[] bases;
+    /**
+     * LAYERS amounts per pixel, row by row, each out of WHOLE: how much of the base shows through,
+     *      then how much of the pixel each pick's fills make up
+     */
+    private final char[] amounts;
+
+    /**
+     * Private constructor for a palette raster of only background, which draw then draws over
+     * @param params    the settings of the fractal drawn
+     * @param size      the dimensions of the raster
+     */
+    private PaletteRaster(FractalParams params, Dimension size) {
+        this.params = params;
+        width = size.width;
+        height = size.height;
+        bases = new byte[width * height];
+        amounts = new char[width * height * LAYERS];
+        for (int pixel = 0; pixel < bases.length; pixel++) {
+            amounts[pixel * LAYERS] = WHOLE;
+        }
+    }
+
+    //------------------------------------------------------------------------
+    //                      Static Methods
+    //------------------------------------------------------------------------
+
+    /**
+     * Draws a fractal as pastel picks, from its stored geometry, laid out the way SpanRasterizer lays it out
+     *      with the center bubble in the middle; every pixel an outline, fill or arc covers
+     *      is one of the spans SpanRasterizer works out for it, so the two cover the same pixels
+     * @param snapshot      the subject's data to draw, small enough to store
+     * @param size          the dimensions of the raster
+     * @param isCancelled   returns true once the raster is no longer wanted
+     * @return  the fractal drawn as pastel picks, or null if it was cancelled
+     */
+    public static PaletteRaster draw(FractalSnapshot snapshot, Dimension size, BooleanSupplier isCancelled) {
+        //each pick's color is the pick itself, so a span's color is the pick of the bubble it belongs to
+        Color[] picks = new Color[StyleTable.PASTELS.length];
+        for (int pick = 0; pick < picks.length; pick++) {
+            picks[pick] = new Color(pick);
+        }
+        PaletteRaster raster = new PaletteRaster(snapshot.getParams(), size);
+        boolean finished = new SpanRasterizer(size, 1).draw(snapshot.getGeometry().withPalette(picks),
+                                                            raster.new LayerTarget(), size.width, 0, size.height,
+                                                            isCancelled);
+        return finished ? raster : null;
+    }
+
+    //------------------------------------------------------------------------
+    //                      Instance Methods
+    //------------------------------------------------------------------------
+
+    /**
+     * @return  the settings of the fractal drawn
+     */
+    public FractalParams getParams() {
+        return params;
+    }
+
+    /**
+     * Colors the raster in one pass over the pixels, mixing each pixel's base and picks by their amounts;
+     *      fills are mixed in once rather than blended one after another, so a channel can be
+     *      a step or two off from drawing the fractal in those colors
+     * @param palette       the colors the picks stand for, one per pastel
+     * @param background    the color behind the fractal
+     * @return  the fractal drawn over the background in those colors
+     */
+    public BufferedImage toImage(Color[] palette, Color background) {
+        int[] baseColors = new int[OUTLINE_BASE + palette.length];
+        baseColors[BACKGROUND_BASE] = background.getRGB();
+        baseColors[ARC_BASE] = StyleTable.ARC_COLOR.getRGB();
+        int[] layerColors = new int[LAYERS];
+        for (int pick = 0; pick < palette.length; pick++) {
+            baseColors[OUTLINE_BASE + pick] = palette[pick].getRGB();
+            layerColors[pick + 1] = palette[pick].getRGB();
+        }
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] imagePixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        for (int pixel = 0; pixel < bases.length; pixel++) {
+            layerColors[0] = baseColors[bases[pixel]];
+            long red = WHOLE / 2;
+            long green = WHOLE / 2;
+            long blue = WHOLE / 2;
+            for (int layer = 0, amount = pixel * LAYERS; layer < LAYERS; layer++, amount++) {
+                int rgb = layerColors[layer];
+                red += (long) amounts[amount] * (rgb >> 16 & 0xFF);
+                green += (long) amounts[amount] * (rgb >> 8 & 0xFF);
+                blue += (long) amounts[amount] * (rgb & 0xFF);
+            }
+            imagePixels[pixel] = (int) Math.min(red / WHOLE, 0xFF) << 16 | (int) Math.min(green / WHOLE, 0xFF) << 8
+                                 | (int) Math.min(blue / WHOLE, 0xFF);
+        }
+        return image;
+    }
+
+    /**
+     * Draws something opaque over a pixel, leaving it wholly that
+     * @param pixel the index of the pixel
+     * @param base  what was drawn over it
+     */
+    private void cover(int pixel, byte base) {
+        bases[pixel] = base;
+        int amount = pixel * LAYERS;
+        amounts[amount] = WHOLE;
+        Arrays.fill(amounts, amount + 1, amount + LAYERS, (char) 0);
+    }
+
+    /**
+     * Draws a translucent fill over a pixel, so everything under it shows through a little less
+     * @param pixel the index of the pixel
+     * @param pick  the pick of the bubble filled
+     */
+    private void fill(int pixel, int pick) {
+        int amount = pixel * LAYERS;
+        for (int layer = 0; layer < LAYERS; layer++) {
+            amounts[amount + layer] = (char) ((amounts[amount + layer] * (255 - FILL_ALPHA) + 127) / 255);
+        }
+        amounts[amount + pick + 1] += FILL_AMOUNT;
+    }
+
+    //------------------------------------------------------------------------
+    //                      Inner Classes
+    //------------------------------------------------------------------------
+
+    /**
+     * Contains code for a layer target, drawing each span over the raster's pixels as picks;
+     *      a span's color is the pick of the bubble it belongs to
+     */
+    private class LayerTarget implements SpanTarget {
+
+        /**
+         * @inheritdoc
+         */
+        @Override
+        public void outline(int row, int left, int right, int rgb) {
+            for (int pixel = row * width + left, end = row * width + right; pixel <= end; pixel++) {
+                cover(pixel, (byte) (OUTLINE_BASE + rgb));
+            }
+        }
+
+        /**
+         * @inheritdoc
+         */
+        @Override
+        public void fill(int row, int left, int right, int rgb) {
+            for (int pixel = row * width + left, end = row * width + right; pixel <= end; pixel++) {
+                PaletteRaster.this.fill(pixel, rgb);
+            }
+        }
+
+        /**
+         * @inheritdoc
+         */
+        @Override
+        public void arc(int row, int left, int right) {
+            for (int pixel = row * width + left, end = row * width + right; pixel <= end; pixel++) {
+                cover(pixel, ARC_BASE);
+            }
+        }
+    }
+}
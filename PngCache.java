@@ -0,0 +1,65 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Contains code for a least recently used cache of encoded PNG images;
+ *      bounded by both the number of images and the bytes they take up in total
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public class PngCache {
+
+    /** the most images kept */
+    private final int maxEntries;
+    /** the most bytes kept across every image */
+    private final long maxBytes;
+    /** the cached images, least recently used first */
+    private final LinkedHashMap<String, byte[]> entries;
+    /** the number of bytes across every cached image */
+    private long byteCount;
+
+    /**
+     * Constructor for a PNG cache
+     * @param maxEntries    the most images kept
+     * @param maxBytes      the most bytes kept across every image
+     */
+    public PngCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        entries = new LinkedHashMap<>(16, .75f, true);
+    }
+
+    /**
+     * Returns the cached image for a key, marking it most recently used
+     * @param key   the normalized settings the image was drawn from
+     * @return  the encoded image, or null if there is none
+     */
+    public synchronized byte[] get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Caches an image, evicting the least recently used ones if the cache is full;
+     *      an image larger than the whole cache is not kept
+     * @param key   the normalized settings the image was drawn from
+     * @param png   the encoded image
+     */
+    public synchronized void put(String key, byte[] png) {
+        if (png.length > maxBytes) {
+            return;
+        }
+        byte[] replaced = entries.put(key, png);
+        if (replaced != null) {
+            byteCount -= replaced.length;
+        }
+        byteCount += png.length;
+
+        Iterator<Map.Entry<String, byte[]>> iterator = entries.entrySet().iterator();
+        while (entries.size() > maxEntries || byteCount > maxBytes) {
+            Map.Entry<String, byte[]> eldest = iterator.next();
+            byteCount -= eldest.getValue().length;
+            iterator.remove();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Contains code for a PNG writer that is fed an image one horizontal strip at a time;
+ *      rows are compressed and written out as soon as they arrive,
+ *      so only the current strip ever has to be held in memory
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public class PngStripWriter {
+
+    /** the bytes every PNG file starts with */
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    /** the most bytes of compressed data put into one IDAT chunk */
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    /** the stream the PNG is written to */
+    private DataOutputStream out;
+    /** the stream row data is compressed through, it writes IDAT chunks */
+    private DeflaterOutputStream compressor;
+    /** the deflater used by the compressor */
+    private Deflater deflater;
+    /** width of the image in pixels */
+    private int width;
+    /** height of the image in pixels */
+    private int height;
+    /** the number of rows written so far */
+    private int rowsWritten;
+    /** one row of filtered RGB bytes, reused for every row */
+    private byte[] rowBytes;
+
+    /**
+     * Constructor for a PNG strip writer, writes the PNG header straight away
+     * @param out       the stream the PNG is written to
+     * @param width     width of the image in pixels
+     * @param height    height of the image in pixels
+     * @throws IOException if the header cannot be written
+     */
+    public PngStripWriter(OutputStream out, int width, int height) throws IOException {
+        this.out = new DataOutputStream(out);
+        this.width = width;
+        this.height = height;
+        rowBytes = new byte[1 + width * 3];
+
+        this.out.write(SIGNATURE);
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream headerData = new DataOutputStream(header);
+        headerData.writeInt(width);
+        headerData.writeInt(height);
+        headerData.writeByte(8);    //bit depth
+        headerData.writeByte(2);    //color type, RGB
+        headerData.writeByte(0);    //compression method
+        headerData.writeByte(0);    //filter method
+        headerData.writeByte(0);    //interlace method
+        writeChunk("IHDR", header.toByteArray(), header.size());
+
+        deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        compressor = new DeflaterOutputStream(new ChunkStream(), deflater, CHUNK_SIZE);
+    }
+
+    /**
+     * Writes every row of a strip, strips must arrive top to bottom
+     * @param strip     the strip to be written, as wide as the image
+     * @param rowCount  the number of rows of the strip to write, from its top
+     * @throws IOException if the rows cannot be written
+     */
+    public void writeStrip(BufferedImage strip, int rowCount) throws IOException {
+        if (rowsWritten + rowCount > height) {
+            throw new IllegalStateException("more rows written than the image has");
+        }
+        int[] rowPixels = new int[width];
+        for (int row = 0; row < rowCount; row++) {
+            strip.getRGB(0, row, width, 1, rowPixels, 0, width);
+            rowBytes[0] = 0;    //filter type, none
+            for (int x = 0, i = 1; x < width; x++) {
+                int rgb = rowPixels[x];
+                rowBytes[i++] = (byte) (rgb >> 16);
+                rowBytes[i++] = (byte) (rgb >> 8);
+                rowBytes[i++] = (byte) rgb;
+            }
+            compressor.write(rowBytes);
+        }
+        rowsWritten += rowCount;
+    }
+
+    /**
+     * Finishes the image, writing the last of the data and the PNG trailer;
+     *      does not close the underlying stream
+     * @throws IOException if the image is not complete or cannot be written
+     */
+    public void finish() throws IOException {
+        if (rowsWritten != height) {
+            throw new IllegalStateException(rowsWritten + " of " + height + " rows written");
+        }
+        compressor.finish();
+        deflater.end();
+        writeChunk("IEND", new byte[0], 0);
+        out.flush();
+    }
+
+    /**
+     * Gives up on the image partway, releasing the compressor; what was written is not a valid PNG
+     */
+    public void abandon() {
+        deflater.end();
+    }
+
+    /**
+     * Writes one PNG chunk
+     * @param type      the 4 letter type of the chunk
+     * @param data      the chunk's data
+     * @param length    the number of bytes of data to write
+     * @throws IOException if the chunk cannot be written
+     */
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        out.writeInt(length);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Contains code for a stream that wraps whatever is written to it into IDAT chunks
+     */
+    private class ChunkStream extends OutputStream {
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > 0) {
+                byte[] data = off == 0 ? b : Arrays.copyOfRange(b, off, off + len);
+                writeChunk("IDAT", data, len);
+            }
+        }
+    }
+}
@@ -0,0 +1,434 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.awt.Color;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Contains code for a render server, drawing fractals to PNG over HTTP without any windows;
+ *      a GET of /render with the setParams values and a size as query parameters
+ *      returns the fractal drawn the same as Main --render would draw it;
+ *      each request is handled on its own virtual thread where the runtime has them,
+ *      or else on a bounded pool of threads,
+ *      encoded images are cached by their normalized parameters,
+ *      and concurrent requests for the same image share a single drawing
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public class RenderServer {
+
+    /** the path images are served from */
+    public static final String RENDER_PATH = "/render";
+    /** the most images kept in the cache */
+    private static final int CACHE_ENTRIES = 256;
+    /** the most bytes kept in the cache across every image */
+    private static final long CACHE_BYTES = 64L << 20;
+    /** the widest or tallest image served, in pixels */
+    private static final int MAX_SIZE = 4096;
+    /** the most bubbles a fractal served may have, counting every level */
+    private static final long MAX_BUBBLES = 1 << 23;
+    /** the longest a drawing may take, waiting its turn included, before it is given up */
+    private static final long DRAWING_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(20);
+    /** the color of the background behind the fractal */
+    private static final Color BACKGROUND = Color.BLACK;
+    /** where requests that fail to draw are logged */
+    private static final Logger LOGGER = Logger.getLogger(RenderServer.class.getName());
+    /**
+     * the number of threads requests are handled on without virtual threads; more than the processors,
+     *      so cached images are still served while drawings wait for a processor
+     */
+    private static final int POOLED_THREADS = 4 * Runtime.getRuntime().availableProcessors();
+    /** the most requests left waiting for a pooled thread before the server stops accepting more */
+    private static final int POOLED_QUEUE = 256;
+
+    /** the HTTP server requests arrive on */
+    private final HttpServer server;
+    /** the threads requests are handled on */
+    private final ExecutorService executor;
+    /** recently drawn images, by normalized parameters */
+    private final PngCache cache;
+    /** the drawings under way, by normalized parameters, which later requests for the same image wait on */
+    private final ConcurrentHashMap<String, CompletableFuture<byte[]>> inFlight;
+    /** limits the drawings under way to one per processor, however many requests are waiting */
+    private final Semaphore drawingPermits;
+
+    /**
+     * Constructor for a render server, which doesn't accept requests until started
+     * @param address   the address and port to listen on
+     * @throws IOException if the address cannot be bound
+     */
+    public RenderServer(InetSocketAddress address) throws IOException {
+        server = HttpServer.create(address, 0);
+        executor = createExecutor();
+        cache = new PngCache(CACHE_ENTRIES, CACHE_BYTES);
+        inFlight = new ConcurrentHashMap<>();
+        drawingPermits = new Semaphore(Runtime.getRuntime().availableProcessors());
+        server.setExecutor(executor);
+        server.createContext(RENDER_PATH, this::handle);
+    }
+
+    //------------------------------------------------------------------------
+    //                      Static Methods
+    //------------------------------------------------------------------------
+
+    /**
+     * Creates the executor requests are handled on; a virtual thread per request where the runtime has them,
+     *      looked up reflectively so the server still runs on releases without them,
+     *      otherwise a fixed pool of daemon threads with a bounded queue;
+     *      once the queue is full the server's dispatcher thread handles the request itself,
+     *      so it stops accepting connections until it is done and further clients wait to connect
+     * @return  an executor handling each task on a virtual thread, or on a bounded pool
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return new ThreadPoolExecutor(POOLED_THREADS, POOLED_THREADS, 0, TimeUnit.SECONDS,
+                                          new LinkedBlockingQueue<>(POOLED_QUEUE), runnable -> {
+                Thread thread = new Thread(runnable, "RenderServer request");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+    }
+
+    /**
+     * Splits a query string into its parameters
+     * @param rawQuery  the query, still percent encoded; null if there is none
+     * @return  the value of each parameter, by name
+     */
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                          URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    /**
+     * Returns one whole number parameter, checked against its range
+     * @param query the parameters of the request
+     * @param name  the name of the parameter
+     * @param min   the smallest value allowed
+     * @param max   the largest value allowed
+     * @return  the value of the parameter
+     * @throws IllegalArgumentException if the parameter is missing, not a number or out of range
+     */
+    private static int intParam(Map<String, String> query, String name, int min, int max) {
+        String value = query.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("missing parameter: " + name);
+        }
+        int number;
+        try {
+            number = Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a whole number: " + value);
+        }
+        if (number < min || number > max) {
+            throw new IllegalArgumentException(name + " must be from " + min + " to " + max + ": " + value);
+        }
+        return number;
+    }
+
+    /**
+     * Reads a request's parameters into a request for one image, normalized so requests for the same image
+     *      share a key however they were written; the color is left out when pastels are shown
+     *      and the seed when nothing random is drawn, as neither changes the image then;
+     *      the settings are limited to the ranges of the gui's sliders, and to MAX_BUBBLES bubbles in all
+     * @param query the parameters of the request
+     * @return  the image asked for
+     * @throws IllegalArgumentException if a parameter is missing or not understood, or the fractal is too large
+     */
+    private static ImageRequest parseRequest(Map<String, String> query) {
+        int width = intParam(query, "width", 1, MAX_SIZE);
+        int height = intParam(query, "height", 1, MAX_SIZE);
+        int recurseDepth = intParam(query, "depth", FractalGui.MIN_RECURSE_DEPTH, FractalGui.MAX_RECURSE_DEPTH);
+        int childRatio = intParam(query, "ratio", FractalGui.MIN_CHILD_RATIO, FractalGui.MAX_CHILD_RATIO);
+        int childCount = intParam(query, "count", FractalGui.MIN_CHILD_COUNT, FractalGui.MAX_CHILD_COUNT);
+        int bedlamLevel = intParam(query, "bedlam", 0, FractalGui.MAX_BEDLAM_LEVEL);
+        long bubbles = FractalGeometry.nodeCount(recurseDepth, childCount);
+        if (bubbles > MAX_BUBBLES) {
+            throw new IllegalArgumentException("depth " + recurseDepth + " with count " + childCount + " has "
+                                               + bubbles + " bubbles, more than the " + MAX_BUBBLES + " served");
+        }
+        boolean hasRandomPastels = Boolean.parseBoolean(query.getOrDefault("pastels", "false").trim());
+
+        Color color = Color.WHITE;
+        if (!hasRandomPastels) {
+            String hex = query.getOrDefault("color", "FFFFFF").trim();
+            try {
+                color = Color.decode("#" + (hex.startsWith("#") ? hex.substring(1) : hex));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("color must be hex such as FF0000: " + hex);
+            }
+        }
+        long seed = FractalGenerator.DEFAULT_SEED;
+        if (bedlamLevel > 0 || hasRandomPastels) {
+            try {
+                seed = Long.parseLong(query.getOrDefault("seed", Long.toString(seed)).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("seed must be a whole number: " + query.get("seed"));
+            }
+        }
+        return new ImageRequest(new FractalParams(recurseDepth, childRatio, childCount, bedlamLevel, color,
+                                                  hasRandomPastels, seed), width, height);
+    }
+
+    //------------------------------------------------------------------------
+    //                      Instance Methods
+    //------------------------------------------------------------------------
+
+    /**
+     * Starts accepting requests
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, waiting up to a second for those under way to finish
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    /**
+     * @return  the address the server listens on, with the port it was given if it asked for any free one
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Handles one request, on its own thread
+     * @param exchange  the request and its response
+     * @throws IOException if the response cannot be sent
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try {
+            if (!exchange.getRequestMethod().equals("GET") && !exchange.getRequestMethod().equals("HEAD")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                sendText(exchange, 405, "only GET and HEAD are supported");
+                return;
+            }
+            ImageRequest request;
+            try {
+                request = parseRequest(parseQuery(exchange.getRequestURI().getRawQuery()));
+            } catch (IllegalArgumentException e) {
+                sendText(exchange, 400, e.getMessage());
+                return;
+            }
+
+            byte[] png;
+            try {
+                png = getImage(request);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof TimeoutException) {
+                    sendText(exchange, 503, e.getCause().getMessage());
+                    return;
+                }
+                LOGGER.log(Level.WARNING, "could not draw " + exchange.getRequestURI(), e.getCause());
+                FractalMetrics.increment("serve.failed");
+                sendText(exchange, 500, "could not draw the fractal");
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                sendText(exchange, 503, "shutting down");
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "image/png");
+            exchange.getResponseHeaders().set("Cache-Control", "public, max-age=86400");
+            boolean isHead = exchange.getRequestMethod().equals("HEAD");
+            exchange.sendResponseHeaders(200, isHead ? -1 : png.length);
+            if (!isHead) {
+                try (OutputStream body = exchange.getResponseBody()) {
+                    body.write(png);
+                }
+            }
+        } finally {
+            exchange.close();
+            FractalMetrics.record("serve", System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Returns the encoded image for a request, from the cache if it is there;
+     *      otherwise the first request for it draws it, and any others arriving meanwhile wait for that drawing,
+     *      failing along with it if it runs out of time
+     * @param request   the image asked for
+     * @return  the image, encoded as a PNG
+     * @throws ExecutionException if the image could not be drawn, caused by a TimeoutException
+     *      if it took longer than DRAWING_TIMEOUT_NANOS
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    private byte[] getImage(ImageRequest request) throws ExecutionException, InterruptedException {
+        String key = request.getKey();
+        byte[] png = cache.get(key);
+        if (png != null) {
+            FractalMetrics.increment("serve.cacheHit");
+            return png;
+        }
+
+        CompletableFuture<byte[]> drawing = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = inFlight.putIfAbsent(key, drawing);
+        if (existing != null) {
+            FractalMetrics.increment("serve.joined");
+            return existing.get();
+        }
+        FractalMetrics.increment("serve.cacheMiss");
+        try {
+            png = cache.get(key);   //drawn and cached between the first look and claiming the drawing
+            if (png == null) {
+                png = draw(request);
+                cache.put(key, png);
+            }
+            drawing.complete(png);
+        } catch (Throwable e) {
+            drawing.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, drawing);
+        }
+        return drawing.get();
+    }
+
+    /**
+     * Draws the image for a request, waiting its turn if every processor is already drawing;
+     *      given up once it has taken DRAWING_TIMEOUT_NANOS, its wait included, so a costly image
+     *      cannot keep a processor, or the requests waiting on it, forever
+     * @param request   the image asked for
+     * @return  the image, encoded as a PNG
+     * @throws IOException if the image cannot be encoded
+     * @throws InterruptedException if the thread is interrupted while waiting its turn
+     * @throws TimeoutException if the image wasn't drawn in time
+     */
+    private byte[] draw(ImageRequest request) throws IOException, InterruptedException, TimeoutException {
+        long deadline = System.nanoTime() + DRAWING_TIMEOUT_NANOS;
+        FractalParams params = request.getParams();
+        FractalGenerator generator = new FractalGenerator();
+        generator.setParams(params.getRecurseDepth(), params.getChildRatio(), params.getChildCount(),
+                            params.getBedlamLevel(), params.getColor(), params.hasRandomPastels());
+        generator.setSeed(params.getSeed());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!drawingPermits.tryAcquire(DRAWING_TIMEOUT_NANOS, TimeUnit.NANOSECONDS)) {
+            FractalMetrics.increment("serve.timeout");
+            throw new TimeoutException("every processor is busy drawing, try again later");
+        }
+        boolean finished;
+        try {
+            finished = new HeadlessRenderer(generator, BACKGROUND).render(out, request.getWidth(), request.getHeight(),
+                                                                          () -> System.nanoTime() - deadline > 0);
+        } finally {
+            drawingPermits.release();
+        }
+        if (!finished) {
+            FractalMetrics.increment("serve.timeout");
+            throw new TimeoutException("the fractal took longer than "
+                                       + TimeUnit.NANOSECONDS.toSeconds(DRAWING_TIMEOUT_NANOS) + " seconds to draw");
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Sends a plain text response
+     * @param exchange  the request and its response
+     * @param status    the status code of the response
+     * @param message   the text of the response
+     * @throws IOException if the response cannot be sent
+     */
+    private static void sendText(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] text = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, text.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(text);
+        }
+    }
+
+    //------------------------------------------------------------------------
+    //                      Inner Classes
+    //------------------------------------------------------------------------
+
+    /**
+     * Contains code for an image request, the normalized settings and size of one image
+     */
+    private static class ImageRequest {
+
+        /** the settings of the fractal */
+        private final FractalParams params;
+        /** width of the image in pixels */
+        private final int width;
+        /** height of the image in pixels */
+        private final int height;
+
+        /**
+         * Constructor for an image request
+         * @param params    the settings of the fractal
+         * @param width     width of the image in pixels
+         * @param height    height of the image in pixels
+         */
+        ImageRequest(FractalParams params, int width, int height) {
+            this.params = params;
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * @return  the settings of the fractal
+         */
+        FractalParams getParams() {
+            return params;
+        }
+
+        /**
+         * @return  width of the image in pixels
+         */
+        int getWidth() {
+            return width;
+        }
+
+        /**
+         * @return  height of the image in pixels
+         */
+        int getHeight() {
+            return height;
+        }
+
+        /**
+         * @return  the key the image is cached under, the same for every request for the same image
+         */
+        String getKey() {
+            return params.getRecurseDepth() + "/" + params.getChildRatio() + "/" + params.getChildCount()
+                    + "/" + params.getBedlamLevel() + "/" + String.format("%06x", params.getColor().getRGB() & 0xFFFFFF)
+                    + "/" + params.hasRandomPastels() + "/" + params.getSeed() + "/" + width + "x" + height;
+        }
+    }
+}
@@ -0,0 +1,688 @@
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Contains code for a span rasterizer, drawing bubbles and arcs straight into an image's pixels
+ *      rather than through Java2D, one row span at a time;
+ *      the image is split into horizontal bands drawn in parallel; the fractal is walked once,
+ *      each bubble placed and binned into the bands it falls on, a chunk of bubbles at a time,
+ *      and each band draws its bubbles in the order they were walked while the next chunk is binned,
+ *      so the bands never share a pixel and each is drawn just as it would be alone;
+ *      the spans are handed to a SpanTarget, by default one setting and blending an image's pixels;
+ *      every view of a fractal, whole, in strips, stamped from a sector, tiled or as palette picks,
+ *      is drawn here, so a bubble covers the same pixels whichever way it is drawn
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public class SpanRasterizer {
+
+    /** the smallest radius, in pixels, a bubble needs to be anything more than a speck */
+    public static final double MIN_VISIBLE_RADIUS = .5;
+    /** the number of pixels around the rows drawn whose bubbles are still walked, covering outlines */
+    private static final int BAND_MARGIN = 2;
+    /** the fewest rows a band has, unless the image has fewer */
+    private static final int MIN_BAND_ROWS = 16;
+    /** the number of bands per processor, so a band full of bubbles does not hold up the rest */
+    private static final int BANDS_PER_PROCESSOR = 4;
+    /** the most bubbles binned before the bands are handed them to draw */
+    private static final int CHUNK_BUBBLES = 1 << 14;
+    /** the opacity of a fill out of 255 */
+    private static final int FILL_ALPHA = Math.round(StyleTable.FILL_ALPHA * 255);
+
+    /** the dimensions of the whole image, which the center bubble is placed in the middle of */
+    private final Dimension displaySize;
+    /** the number of pixels one unit of fractal coordinates is drawn as */
+    private final double scale;
+    /**
+     * the point of the scaled plane, in pixels right of and below the center bubble,
+     *      at the whole image's top left corner; null if the center bubble is in the middle of the image
+     */
+    private final Point2D origin;
+    /** the number of bubble draws the last draw made, counting a bubble once per band it was drawn on */
+    private long bubblesDrawn;
+
+    /**
+     * Constructor for a span rasterizer
+     * @param displaySize   the dimensions of the whole image, which the center bubble is placed in the middle of
+     * @param scale         the number of pixels one unit of fractal coordinates is drawn as
+     */
+    public SpanRasterizer(Dimension displaySize, double scale) {
+        this.displaySize = displaySize;
+        this.scale = scale;
+        origin = null;
+    }
+
+    /**
+     * Constructor for a span rasterizer drawing one tile of a larger scaled plane;
+     *      bubbles are placed by rounding down, so one crossing from a tile into the next
+     *      lines up on both
+     * @param scale     the number of pixels one unit of fractal coordinates is drawn as
+     * @param originX   the x coordinate of the whole image's left edge, in pixels right of the center bubble
+     * @param originY   the y coordinate of the whole image's top edge, in pixels below the center bubble
+     */
+    public SpanRasterizer(double scale, double originX, double originY) {
+        displaySize = null;
+        this.scale = scale;
+        origin = new Point2D.Double(originX, originY);
+    }
+
+    //------------------------------------------------------------------------
+    //                      Static Methods
+    //------------------------------------------------------------------------
+
+    /**
+     * Returns a span target drawing into an image's pixels, setting outlines and arcs
+     *      and blending fills the same way Java2D blends them, alpha included
+     * @param image an image of TYPE_INT_RGB or TYPE_INT_ARGB_PRE
+     * @return  the span target drawing into the image
+     */
+    public static SpanTarget pixelTarget(BufferedImage image) {
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        return new PixelTarget(pixels, image.getWidth());
+    }
+
+    /**
+     * Multiplies two 8 bit values as fractions of 255, rounded, the same as Java2D blends them
+     * @param a one value, 0 to 255
+     * @param b the other value, 0 to 255
+     * @return  their product out of 255
+     */
+    private static int mul8(int a, int b) {
+        return (a * b + 127) / 255;
+    }
+
+    //------------------------------------------------------------------------
+    //                      Instance Methods
+    //------------------------------------------------------------------------
+
+    /**
+     * Draws the fractal over some rows of the whole image, splitting them into bands drawn in parallel;
+     *      the source is walked once, on the calling thread
+     * @param source        where the bubbles of the fractal drawn come from
+     * @param image         an image of TYPE_INT_RGB or TYPE_INT_ARGB_PRE holding the rows,
+     *                          already filled with the background, or left clear
+     * @param top           the row of the whole image the image's first row is
+     * @param rowCount      the number of the image's rows to draw, from its first
+     * @param isCancelled   returns true once the drawing is no longer wanted
+     * @return  true if every band was drawn, false if the drawing was cancelled
+     */
+    public boolean draw(FractalSource source, BufferedImage image, int top, int rowCount,
+                        BooleanSupplier isCancelled) {
+        return draw(source, pixelTarget(image), image.getWidth(), top, rowCount, isCancelled);
+    }
+
+    /**
+     * Works out the spans of the fractal over some rows of the whole image, splitting them into bands
+     *      handed to the target in parallel; the source is walked once, on the calling thread
+     * @param source        where the bubbles of the fractal drawn come from
+     * @param target        handed every span, rows counted from top
+     * @param width         the width of the target in pixels
+     * @param top           the row of the whole image the target's first row is
+     * @param rowCount      the number of the target's rows to draw, from its first
+     * @param isCancelled   returns true once the drawing is no longer wanted
+     * @return  true if every band was drawn, false if the drawing was cancelled
+     */
+    public boolean draw(FractalSource source, SpanTarget target, int width, int top, int rowCount,
+                        BooleanSupplier isCancelled) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int bandCount = processors == 1 ? 1
+                        : Math.max(1, Math.min(processors * BANDS_PER_PROCESSOR, rowCount / MIN_BAND_ROWS));
+        BandPainter[] painters = new BandPainter[bandCount];
+        for (int band = 0; band < bandCount; band++) {
+            int from = (int) ((long) rowCount * band / bandCount);
+            int to = (int) ((long) rowCount * (band + 1) / bandCount);
+            painters[band] = new BandPainter(target, width, from, to);
+        }
+
+        BandBinner binner = new BandBinner(painters, top, rowCount, isCancelled);
+        boolean finished = false;
+        try {
+            finished = source.walk(binner, rowRegion(width, top, top + rowCount), MIN_VISIBLE_RADIUS / scale);
+        } finally {
+            //every band is finished with the pixels before they are handed back, even if the walk failed
+            finished = binner.finish() && finished;
+        }
+        bubblesDrawn = 0;
+        for (BandPainter painter : painters) {
+            bubblesDrawn += painter.bubblesDrawn;
+        }
+        return finished;
+    }
+
+    /**
+     * @return  the number of bubble draws the last draw made, counting a bubble once per band it was drawn on
+     */
+    public long getBubblesDrawn() {
+        return bubblesDrawn;
+    }
+
+    /**
+     * Returns the part of the fractal that falls on some rows of the whole image, with a small margin
+     * @param width     the width of the image in pixels
+     * @param fromRow   the first row, of the whole image
+     * @param toRow     one past the last row, of the whole image
+     * @return  the region the rows cover, using cartesian system
+     */
+    private Rectangle2D rowRegion(int width, int fromRow, int toRow) {
+        //the pixels right of and below the center bubble the rows cover
+        double leftPixel = origin == null ? -displaySize.width / 2 : origin.getX();
+        double rightPixel = origin == null ? displaySize.width / 2 : origin.getX() + width;
+        double topPixel = origin == null ? fromRow - displaySize.height / 2 : origin.getY() + fromRow;
+        double bottomPixel = origin == null ? toRow - displaySize.height / 2 : origin.getY() + toRow;
+        //graphics y grows downwards, cartesian y upwards
+        double left = (leftPixel - BAND_MARGIN) / scale;
+        double right = (rightPixel + BAND_MARGIN) / scale;
+        double top = -(topPixel - BAND_MARGIN) / scale;
+        double bottom = -(bottomPixel + BAND_MARGIN) / scale;
+        return new Rectangle2D.Double(left, bottom, right - left, top - bottom);
+    }
+
+    //------------------------------------------------------------------------
+    //                      Inner Classes
+    //------------------------------------------------------------------------
+
+    /**
+     * Contains code for a band binner, a visitor placing each bubble in pixels and binning it
+     *      into every band it falls on; once a chunk is full it is handed to the bands to draw in parallel
+     *      while the next chunk is binned, and a chunk is only handed over once the one before it is drawn;
+     *      with a single band, each bubble is drawn as soon as it is placed
+     */
+    private class BandBinner implements FractalVisitor {
+
+        /** the painter of each band, top to bottom */
+        private final BandPainter[] painters;
+        /** the row of the whole image the image's first row is */
+        private final int top;
+        /** the number of the image's rows drawn */
+        private final int rowCount;
+        /** returns true once the drawing is no longer wanted */
+        private final BooleanSupplier isCancelled;
+        /** the chunk bubbles are being binned into */
+        private PlacedBubbles filling;
+        /** the chunk the bands are drawing, or were last drawing */
+        private PlacedBubbles spare;
+        /** the bands drawing a chunk, true once they have drawn it all; null if none is being drawn */
+        private ForkJoinTask<Boolean> drawing;
+
+        /**
+         * Constructor for a band binner
+         * @param painters      the painter of each band, top to bottom
+         * @param top           the row of the whole image the image's first row is
+         * @param rowCount      the number of the image's rows drawn
+         * @param isCancelled   returns true once the drawing is no longer wanted
+         */
+        BandBinner(BandPainter[] painters, int top, int rowCount, BooleanSupplier isCancelled) {
+            this.painters = painters;
+            this.top = top;
+            this.rowCount = rowCount;
+            this.isCancelled = isCancelled;
+            if (painters.length > 1) {
+                filling = new PlacedBubbles(painters.length);
+                spare = new PlacedBubbles(painters.length);
+            }
+        }
+
+        /**
+         * @inheritdoc
+         */
+        @Override
+        public boolean visit(int level, double xCoord, double yCoord, double radius, Color color) {
+            if (isCancelled.getAsBoolean()) {
+                return false;
+            }
+            //scaled before casting, so large images keep their detail
+            int bubbleRadius = (int) (radius * scale);
+            int arcRadius = (int) (radius * FractalGeometry.ARC_RATIO * scale);
+            int graphicsXCoord;
+            int graphicsYCoord;
+            if (origin == null) {
+                graphicsXCoord = (displaySize.width / 2) + (int) (xCoord * scale);
+                graphicsYCoord = (displaySize.height / 2) - (int) (yCoord * scale) - top;
+            } else {
+                graphicsXCoord = (int) Math.floor(xCoord * scale - origin.getX());
+                graphicsYCoord = (int) Math.floor(-yCoord * scale - origin.getY()) - top;
+            }
+
+            //the outline can fall a row beyond the radius
+            int firstRow = Math.max(graphicsYCoord - bubbleRadius - 1, 0);
+            int lastRow = Math.min(graphicsYCoord + bubbleRadius + 1, rowCount - 1);
+            if (firstRow > lastRow) {
+                return true;    //walked for its children, but falls outside the rows itself
+            }
+            int rgb = color.getRGB() & 0xFFFFFF;
+            if (painters.length == 1) {
+                painters[0].draw(graphicsXCoord, graphicsYCoord, bubbleRadius, arcRadius, rgb);
+                return true;
+            }
+            filling.add(graphicsXCoord, graphicsYCoord, bubbleRadius, arcRadius, rgb,
+                        bandOf(firstRow), bandOf(lastRow));
+            return filling.size < CHUNK_BUBBLES || handOver();
+        }
+
+        /**
+         * Hands the last chunk to the bands, and waits for them to draw it
+         * @return  true if every chunk was drawn, false if the drawing was cancelled
+         */
+        boolean finish() {
+            return painters.length == 1 || handOver() && (drawing == null || drawing.join());
+        }
+
+        /**
+         * Returns the band a row is drawn by, the last whose first row is at or above it
+         * @param row   the row of the image
+         * @return  the index of the band
+         */
+        private int bandOf(int row) {
+            return (int) (((long) row + 1) * painters.length - 1) / rowCount;
+        }
+
+        /**
+         * Waits for the bands to draw the chunk they have, then hands them the filled one to draw
+         *      and starts filling the other
+         * @return  true if the bands drew every chunk so far, false if the drawing was cancelled
+         */
+        private boolean handOver() {
+            boolean drawn = drawing == null || drawing.join();
+            drawing = null;
+            if (!drawn || filling.size == 0) {
+                return drawn;
+            }
+            PlacedBubbles chunk = filling;
+            filling = spare;
+            filling.clear();
+            spare = chunk;
+            drawing = ForkJoinTask.adapt(() -> drawChunk(chunk)).fork();
+            return true;
+        }
+
+        /**
+         * Draws a chunk, each band in parallel drawing its own bubbles in the order they were binned
+         * @param chunk the bubbles to draw
+         * @return  true if every band drew all its bubbles, false if the drawing was cancelled
+         */
+        private boolean drawChunk(PlacedBubbles chunk) {
+            List<ForkJoinTask<Boolean>> bands = new ArrayList<>();
+            for (int band = 0; band < painters.length; band++) {
+                if (chunk.memberCounts[band] > 0) {
+                    int bandIndex = band;
+                    bands.add(ForkJoinTask.adapt(() -> drawBand(chunk, bandIndex)));
+                }
+            }
+            boolean finished = true;
+            for (ForkJoinTask<Boolean> band : ForkJoinTask.invokeAll(bands)) {
+                finished &= band.join();
+            }
+            return finished;
+        }
+
+        /**
+         * Draws the bubbles of a chunk binned into one band
+         * @param chunk the bubbles to draw
+         * @param band  the index of the band
+         * @return  true if every bubble was drawn, false if the drawing was cancelled
+         */
+        private boolean drawBand(PlacedBubbles chunk, int band) {
+            BandPainter painter = painters[band];
+            int[] members = chunk.members[band];
+            for (int member = 0; member < chunk.memberCounts[band]; member++) {
+                if (isCancelled.getAsBoolean()) {
+                    return false;
+                }
+                int bubble = members[member];
+                painter.draw(chunk.xCoords[bubble], chunk.yCoords[bubble], chunk.radii[bubble],
+                             chunk.arcRadii[bubble], chunk.colors[bubble]);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Contains code for a chunk of placed bubbles, in pixels, in the order they were walked,
+     *      along with which of them each band draws
+     */
+    private static class PlacedBubbles {
+
+        /** x coordinate of each bubble's center pixel */
+        private final int[] xCoords = new int[CHUNK_BUBBLES];
+        /** y coordinate of each bubble's center pixel, of the image */
+        private final int[] yCoords = new int[CHUNK_BUBBLES];
+        /** radius of each bubble in pixels */
+        private final int[] radii = new int[CHUNK_BUBBLES];
+        /** radius of each bubble's arc in pixels */
+        private final int[] arcRadii = new int[CHUNK_BUBBLES];
+        /** the color of each bubble */
+        private final int[] colors = new int[CHUNK_BUBBLES];
+        /** the bubbles each band draws, by their index in the chunk */
+        private final int[][] members;
+        /** the number of bubbles each band draws */
+        private final int[] memberCounts;
+        /** the number of bubbles in the chunk */
+        private int size;
+
+        /**
+         * Constructor for an empty chunk
+         * @param bandCount the number of bands the bubbles are binned into
+         */
+        PlacedBubbles(int bandCount) {
+            members = new int[bandCount][CHUNK_BUBBLES / bandCount + 1];
+            memberCounts = new int[bandCount];
+        }
+
+        /**
+         * Adds a bubble to the chunk, binned into a run of bands
+         * @param xCoord    x coordinate of the bubble's center pixel
+         * @param yCoord    y coordinate of the bubble's center pixel, of the image
+         * @param radius    radius of the bubble in pixels
+         * @param arcRadius radius of the bubble's arc in pixels
+         * @param rgb       the color of the bubble
+         * @param firstBand the first band the bubble falls on
+         * @param lastBand  the last band the bubble falls on
+         */
+        void add(int xCoord, int yCoord, int radius, int arcRadius, int rgb, int firstBand, int lastBand) {
+            xCoords[size] = xCoord;
+            yCoords[size] = yCoord;
+            radii[size] = radius;
+            arcRadii[size] = arcRadius;
+            colors[size] = rgb;
+            for (int band = firstBand; band <= lastBand; band++) {
+                if (memberCounts[band] == members[band].length) {
+                    members[band] = Arrays.copyOf(members[band], members[band].length * 2);
+                }
+                members[band][memberCounts[band]++] = size;
+            }
+            size++;
+        }
+
+        /**
+         * Empties the chunk, keeping its arrays
+         */
+        void clear() {
+            size = 0;
+            Arrays.fill(memberCounts, 0);
+        }
+    }
+
+    /**
+     * Contains code for a band painter, working out each bubble's outline, fill and arc
+     *      as spans on the rows of one band, leaving every other row alone
+     */
+    private class BandPainter {
+
+        /** handed every span */
+        private final SpanTarget target;
+        /** the width of the target in pixels */
+        private final int width;
+        /** the first row of the band, of the target */
+        private final int fromRow;
+        /** one past the last row of the band, of the target */
+        private final int toRow;
+        /** the number of bubbles drawn on the band */
+        private long bubblesDrawn;
+
+        /**
+         * Constructor for a band painter
+         * @param target    handed every span
+         * @param width     the width of the target in pixels
+         * @param fromRow   the first row of the band, of the target
+         * @param toRow     one past the last row of the band, of the target
+         */
+        BandPainter(SpanTarget target, int width, int fromRow, int toRow) {
+            this.target = target;
+            this.width = width;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        /**
+         * Draws a bubble's outline, then its fill over it, then its arc
+         * @param centerX   x coordinate of the bubble's center pixel
+         * @param centerY   y coordinate of the bubble's center pixel, of the target
+         * @param radius    radius of the bubble in pixels
+         * @param arcRadius radius of the bubble's arc in pixels
+         * @param rgb       the color of the bubble
+         */
+        void draw(int centerX, int centerY, int radius, int arcRadius, int rgb) {
+            bubblesDrawn++;
+            SpanStencil outline = SpanStencil.outline(radius);
+            if (outline != null) {
+                drawStencil(outline, centerX, centerY, rgb);
+                drawStencil(SpanStencil.fill(radius), centerX, centerY, rgb);
+            } else {
+                drawOutline(centerX, centerY, radius, rgb);
+                drawFill(centerX, centerY, radius, rgb);
+            }
+            SpanStencil arc = SpanStencil.arc(arcRadius);
+            if (arc != null) {
+                drawStencil(arc, centerX, centerY, rgb);
+            } else {
+                drawArc(centerX, centerY, arcRadius, arcRadius / 10);
+            }
+        }
+
+        /**
+         * Draws a stencil's spans around the center pixel, clipped to the band and the target
+         * @param stencil   the spans Java2D covers drawing the shape
+         * @param centerX   x coordinate of the shape's center pixel
+         * @param centerY   y coordinate of the shape's center pixel
+         * @param rgb       the color of the bubble, not needed for an arc
+         */
+        private void drawStencil(SpanStencil stencil, int centerX, int centerY, int rgb) {
+            int from = Math.max(centerY + stencil.getFirstRow(), fromRow);
+            int to = Math.min(centerY + stencil.getLastRow(), toRow - 1);
+            for (int row = from; row <= to; row++) {
+                int end = stencil.getFirstRun(row - centerY + 1);
+                for (int run = stencil.getFirstRun(row - centerY); run < end; run++) {
+                    long left = Math.max((long) centerX + stencil.getLeft(run), 0);
+                    long right = Math.min((long) centerX + stencil.getRight(run), width - 1);
+                    if (left > right) {
+                        continue;
+                    }
+                    switch (stencil.getShape()) {
+                        case OUTLINE -> target.outline(row, (int) left, (int) right, rgb);
+                        case FILL -> target.fill(row, (int) left, (int) right, rgb);
+                        case ARC -> target.arc(row, (int) left, (int) right);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Draws a circle's one pixel outline around the center pixel, the pixel nearest the circle on each row
+         *      where the circle is closer to upright than level, and on each column elsewhere,
+         *      the same as Java2D steps along a thin line
+         * @param centerX   x coordinate of the circle's center pixel
+         * @param centerY   y coordinate of the circle's center pixel
+         * @param radius    radius of the circle in pixels
+         * @param rgb       the color of the outline
+         */
+        private void drawOutline(int centerX, int centerY, int radius, int rgb) {
+            double radiusSquared = (double) radius * radius;
+            int from = Math.max(centerY - radius, fromRow);
+            int to = Math.min(centerY + radius, toRow - 1);
+            for (int row = from; row <= to; row++) {
+                long dy = Math.abs(row - centerY);
+                long low = Long.MAX_VALUE;
+                long high = -1;
+                //the steep sides, one pixel per row
+                if (2 * dy * dy <= radiusSquared) {
+                    low = high = Math.round(Math.sqrt(radiusSquared - dy * dy));
+                }
+                //the flat top and bottom, a run per row of the columns whose nearest row this is
+                double outer = radiusSquared - (dy + .5) * (dy + .5);
+                double inner = radiusSquared - (dy - .5) * (dy - .5);
+                long runLow = outer < 0 ? 0 : (long) Math.floor(Math.sqrt(outer)) + 1;
+                long runHigh = Math.min((long) Math.floor(Math.sqrt(Math.max(inner, 0))),
+                                        (long) Math.floor(Math.sqrt(radiusSquared / 2)));
+                if (runLow <= runHigh) {
+                    low = Math.min(low, runLow);
+                    high = Math.max(high, runHigh);
+                }
+                if (high >= 0) {
+                    outlineSpan(row, centerX + low, centerX + high, rgb);
+                    outlineSpan(row, centerX - high, centerX - low, rgb);
+                }
+            }
+        }
+
+        /**
+         * Fills a circle around the center pixel, every pixel whose center is inside it
+         * @param centerX   x coordinate of the circle's center pixel
+         * @param centerY   y coordinate of the circle's center pixel
+         * @param radius    radius of the circle in pixels
+         * @param rgb       the color of the fill, before it is made translucent
+         */
+        private void drawFill(int centerX, int centerY, int radius, int rgb) {
+            double radiusSquared = (double) radius * radius;
+            int from = Math.max(centerY - radius, fromRow);
+            int to = Math.min(centerY + radius, toRow - 1);
+            for (int row = from; row <= to; row++) {
+                double dy = row - centerY;
+                double halfSquared = radiusSquared - dy * dy;
+                if (halfSquared <= 0) {
+                    continue;
+                }
+                long half = (long) Math.ceil(Math.sqrt(halfSquared)) - 1;
+                long left = Math.max(centerX - half, 0);
+                long right = Math.min(centerX + half, width - 1);
+                if (left <= right) {
+                    target.fill(row, (int) left, (int) right, rgb);
+                }
+            }
+        }
+
+        /**
+         * Draws an arc from StyleTable.ARC_START through StyleTable.ARC_EXTENT degrees, for arcs too large to
+         *      have a stencil; a thin arc is the pixels its path passes through,
+         *      a wider one every pixel whose center is within half the width of its path, its ends squared off
+         * @param centerX       x coordinate of the arc's center
+         * @param centerY       y coordinate of the arc's center
+         * @param radius        radius of the arc in pixels
+         * @param strokeWidth   the width of the arc in pixels
+         */
+        private void drawArc(int centerX, int centerY, int radius, int strokeWidth) {
+            double start = Math.toRadians(StyleTable.ARC_START);
+            double extent = Math.toRadians(StyleTable.ARC_EXTENT);
+            if (strokeWidth <= 1) {
+                int steps = Math.max(1, (int) Math.ceil(radius * extent));
+                for (int step = 0; step <= steps; step++) {
+                    double theta = start + extent * step / steps;
+                    long column = (long) Math.floor(centerX + radius * Math.cos(theta));
+                    long row = (long) Math.floor(centerY - radius * Math.sin(theta));
+                    if (row >= fromRow && row < toRow && column >= 0 && column < width) {
+                        target.arc((int) row, (int) column, (int) column);
+                    }
+                }
+                return;
+            }
+
+            double halfWidth = strokeWidth / 2.0;
+            double cap = halfWidth / radius;
+            double outer = radius + halfWidth;
+            //only the columns on the target are tested
+            long left = Math.max((long) Math.floor(centerX + (radius - halfWidth) * Math.cos(start + extent + cap)
+                                                   - halfWidth), 0);
+            long right = Math.min((long) Math.ceil(centerX + outer * Math.cos(start - cap)), width - 1);
+            int from = (int) Math.max(Math.floor(centerY - outer * Math.sin(start + extent + cap) - 1), fromRow);
+            int to = (int) Math.min(Math.ceil(centerY - (radius - halfWidth) * Math.sin(start - cap) + 1), toRow - 1);
+            for (int row = from; row <= to; row++) {
+                double dy = centerY - (row + .5);
+                long runLeft = Long.MAX_VALUE;
+                long runRight = -1;
+                for (long column = left; column <= right; column++) {
+                    double dx = column + .5 - centerX;
+                    double distance = Math.sqrt(dx * dx + dy * dy);
+                    double theta = Math.atan2(dy, dx);
+                    if (Math.abs(distance - radius) <= halfWidth
+                            && theta >= start - cap && theta <= start + extent + cap) {
+                        runLeft = Math.min(runLeft, column);
+                        runRight = column;
+                    }
+                }
+                if (runRight >= 0) {
+                    target.arc(row, (int) runLeft, (int) runRight);
+                }
+            }
+        }
+
+        /**
+         * Hands a span of an outline to the target, clipped to the band and the target
+         * @param row   the row of the target
+         * @param left  the first column of the span
+         * @param right the last column of the span
+         * @param rgb   the color of the outline
+         */
+        private void outlineSpan(int row, long left, long right, int rgb) {
+            long clippedLeft = Math.max(left, 0);
+            long clippedRight = Math.min(right, width - 1);
+            if (row >= fromRow && row < toRow && clippedLeft <= clippedRight) {
+                target.outline(row, (int) clippedLeft, (int) clippedRight, rgb);
+            }
+        }
+    }
+
+    /**
+     * Contains code for a pixel target, drawing spans into the pixels of a TYPE_INT_RGB or TYPE_INT_ARGB_PRE image,
+     *      fills blended the same way Java2D blends them, alpha included
+     */
+    private static class PixelTarget implements SpanTarget {
+
+        /** the pixels of the image, row by row */
+        private final int[] pixels;
+        /** the width of the image in pixels */
+        private final int width;
+
+        /**
+         * Constructor for a pixel target
+         * @param pixels    the pixels of the image, row by row
+         * @param width     the width of the image in pixels
+         */
+        PixelTarget(int[] pixels, int width) {
+            this.pixels = pixels;
+            this.width = width;
+        }
+
+        /**
+         * @inheritdoc
+         */
+        @Override
+        public void outline(int row, int left, int right, int rgb) {
+            Arrays.fill(pixels, row * width + left, row * width + right + 1, 0xFF000000 | rgb);
+        }
+
+        /**
+         * @inheritdoc
+         *      the color is premultiplied by the alpha once, so each pixel only scales what is under it
+         */
+        @Override
+        public void fill(int row, int left, int right, int rgb) {
+            int keep = 255 - FILL_ALPHA;
+            int red = mul8(FILL_ALPHA, rgb >> 16 & 0xFF);
+            int green = mul8(FILL_ALPHA, rgb >> 8 & 0xFF);
+            int blue = mul8(FILL_ALPHA, rgb & 0xFF);
+            for (int pixel = row * width + left, end = row * width + right; pixel <= end; pixel++) {
+                int under = pixels[pixel];
+                pixels[pixel] = (FILL_ALPHA + mul8(keep, under >>> 24)) << 24
+                                | (red + mul8(keep, under >> 16 & 0xFF)) << 16
+                                | (green + mul8(keep, under >> 8 & 0xFF)) << 8
+                                | (blue + mul8(keep, under & 0xFF));
+            }
+        }
+
+        /**
+         * @inheritdoc
+         */
+        @Override
+        public void arc(int row, int left, int right) {
+            Arrays.fill(pixels, row * width + left, row * width + right + 1, StyleTable.ARC_COLOR.getRGB());
+        }
+    }
+}
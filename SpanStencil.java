@@ -0,0 +1,239 @@
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Contains code for a span stencil, the row spans Java2D covers drawing one of a bubble's shapes
+ *      around its center pixel, the way the bubbles were first drawn: drawOval's outline and fillOval's fill
+ *      of the box (x - r, y - r, 2r, 2r), or drawArc's arc in that box with a stroke a tenth of its radius;
+ *      each stencil is drawn by Java2D once, the first time its radius is needed, and kept,
+ *      so a span rasterizer covers exactly the pixels Java2D would without drawing each bubble through it;
+ *      shapes larger than MAX_RADIUS are not kept, the span rasterizer works those out itself
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public class SpanStencil {
+
+    /** the largest radius a stencil is kept for */
+    public static final int MAX_RADIUS = 256;
+    /** the outline stencil of each radius, null until it is first needed */
+    private static final AtomicReferenceArray<SpanStencil> OUTLINES = new AtomicReferenceArray<>(MAX_RADIUS + 1);
+    /** the fill stencil of each radius, null until it is first needed */
+    private static final AtomicReferenceArray<SpanStencil> FILLS = new AtomicReferenceArray<>(MAX_RADIUS + 1);
+    /** the arc stencil of each radius, null until it is first needed */
+    private static final AtomicReferenceArray<SpanStencil> ARCS = new AtomicReferenceArray<>(MAX_RADIUS + 1);
+
+    /** the shape the stencil covers */
+    private final Shape shape;
+    /** the first row the stencil covers, relative to the center pixel */
+    private final int firstRow;
+    /** the last row the stencil covers, relative to the center pixel */
+    private final int lastRow;
+    /** the index of each row's first run, with one past the last row's last run at the end */
+    private final int[] rowStarts;
+    /** the first column of each run, relative to the center pixel */
+    private final int[] lefts;
+    /** the last column of each run, relative to the center pixel */
+    private final int[] rights;
+
+    /**
+     * Constructor for a span stencil, drawing the shape with Java2D
+     * @param shape     the shape the stencil covers
+     * @param radius    the radius of the shape in pixels
+     */
+    private SpanStencil(Shape shape, int radius) {
+        this.shape = shape;
+        //a wide arc's square ends can stick out past its radius by half its stroke
+        int margin = shape == Shape.ARC ? radius / 10 + 2 : 2;
+        int center = radius + margin;
+        int size = 2 * center + 1;
+        BufferedImage mask = new BufferedImage(size, size, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = mask.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            switch (shape) {
+                case OUTLINE -> {
+                    g.setStroke(StyleTable.OUTLINE_STROKE);
+                    g.drawOval(center - radius, center - radius, radius * 2, radius * 2);
+                }
+                case FILL -> {
+                    //Java2D covers a translucent fill's pixels by another path than an opaque one's
+                    g.setColor(new Color(1f, 1f, 1f, StyleTable.FILL_ALPHA));
+                    g.fillOval(center - radius, center - radius, radius * 2, radius * 2);
+                }
+                case ARC -> {
+                    g.setStroke(new BasicStroke(radius / 10));
+                    g.drawArc(center - radius, center - radius, radius * 2, radius * 2,
+                              StyleTable.ARC_START, StyleTable.ARC_EXTENT);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+
+        //every run of covered pixels, row by row
+        byte[] pixels = ((DataBufferByte) mask.getRaster().getDataBuffer()).getData();
+        int[] starts = new int[size + 1];
+        int[] runLefts = new int[size];
+        int[] runRights = new int[size];
+        int runCount = 0;
+        int first = size;
+        int last = -1;
+        for (int row = 0; row < size; row++) {
+            starts[row] = runCount;
+            for (int column = 0; column < size; column++) {
+                if (pixels[row * size + column] == 0) {
+                    continue;
+                }
+                int right = column;
+                while (right + 1 < size && pixels[row * size + right + 1] != 0) {
+                    right++;
+                }
+                if (runCount == runLefts.length) {
+                    runLefts = Arrays.copyOf(runLefts, runCount * 2);
+                    runRights = Arrays.copyOf(runRights, runCount * 2);
+                }
+                runLefts[runCount] = column - center;
+                runRights[runCount] = right - center;
+                runCount++;
+                first = Math.min(first, row);
+                last = row;
+                column = right;
+            }
+        }
+        starts[size] = runCount;
+
+        if (last < 0) {
+            firstRow = 0;
+            lastRow = -1;
+            rowStarts = new int[1];
+        } else {
+            firstRow = first - center;
+            lastRow = last - center;
+            rowStarts = Arrays.copyOfRange(starts, first, last + 2);
+        }
+        lefts = Arrays.copyOf(runLefts, runCount);
+        rights = Arrays.copyOf(runRights, runCount);
+    }
+
+    //------------------------------------------------------------------------
+    //                      Static Methods
+    //------------------------------------------------------------------------
+
+    /**
+     * Returns the stencil of a bubble's outline, drawn with StyleTable.OUTLINE_STROKE
+     * @param radius    the radius of the bubble in pixels
+     * @return  the stencil, or null if the radius is more than MAX_RADIUS
+     */
+    public static SpanStencil outline(int radius) {
+        return get(OUTLINES, Shape.OUTLINE, radius);
+    }
+
+    /**
+     * Returns the stencil of a bubble's fill
+     * @param radius    the radius of the bubble in pixels
+     * @return  the stencil, or null if the radius is more than MAX_RADIUS
+     */
+    public static SpanStencil fill(int radius) {
+        return get(FILLS, Shape.FILL, radius);
+    }
+
+    /**
+     * Returns the stencil of a bubble's arc, from StyleTable.ARC_START through StyleTable.ARC_EXTENT degrees
+     * @param radius    the radius of the arc in pixels
+     * @return  the stencil, or null if the radius is more than MAX_RADIUS
+     */
+    public static SpanStencil arc(int radius) {
+        return get(ARCS, Shape.ARC, radius);
+    }
+
+    /**
+     * Private method to the stencil getters; returns the kept stencil, drawing it if it is the first asked for;
+     *      two threads asking at once may both draw it, but only one is kept
+     * @param stencils  the stencils kept for the shape, by radius
+     * @param shape     the shape the stencil covers
+     * @param radius    the radius of the shape in pixels
+     * @return  the stencil, or null if the radius is more than MAX_RADIUS
+     */
+    private static SpanStencil get(AtomicReferenceArray<SpanStencil> stencils, Shape shape, int radius) {
+        if (radius < 0 || radius > MAX_RADIUS) {
+            return null;
+        }
+        SpanStencil stencil = stencils.get(radius);
+        if (stencil == null) {
+            stencils.compareAndSet(radius, null, new SpanStencil(shape, radius));
+            stencil = stencils.get(radius);
+        }
+        return stencil;
+    }
+
+    //------------------------------------------------------------------------
+    //                      Instance Methods
+    //------------------------------------------------------------------------
+
+    /**
+     * @return  the shape the stencil covers
+     */
+    public Shape getShape() {
+        return shape;
+    }
+
+    /**
+     * @return  the first row the stencil covers, relative to the center pixel
+     */
+    public int getFirstRow() {
+        return firstRow;
+    }
+
+    /**
+     * @return  the last row the stencil covers, relative to the center pixel, less than the first if it covers none
+     */
+    public int getLastRow() {
+        return lastRow;
+    }
+
+    /**
+     * Returns the index of a row's first run; the runs of a row end where the next row's begin
+     * @param row   the row, relative to the center pixel, from the first row to one past the last
+     * @return  the index of the row's first run
+     */
+    public int getFirstRun(int row) {
+        return rowStarts[row - firstRow];
+    }
+
+    /**
+     * @param run   the index of the run
+     * @return  the first column of the run, relative to the center pixel
+     */
+    public int getLeft(int run) {
+        return lefts[run];
+    }
+
+    /**
+     * @param run   the index of the run
+     * @return  the last column of the run, relative to the center pixel
+     */
+    public int getRight(int run) {
+        return rights[run];
+    }
+
+    //------------------------------------------------------------------------
+    //                      Inner Classes
+    //------------------------------------------------------------------------
+
+    /**
+     * Contains the shapes of a bubble a stencil can cover
+     */
+    public enum Shape {
+        /** the bubble's one pixel outline, drawn opaque */
+        OUTLINE,
+        /** the bubble's fill, drawn translucent */
+        FILL,
+        /** the bubble's arc, drawn opaque */
+        ARC
+    }
+}
@@ -0,0 +1,37 @@
+/**
+ * Contains the methods a span target must contain;
+ *      a span target is handed the row spans a SpanRasterizer works out for each outline, fill and arc,
+ *      in the order they are drawn, and decides what drawing them means;
+ *      spans are already clipped to the target's width and rows, and bands of rows are drawn in parallel,
+ *      so a target must only change what lies on the row it is handed
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public interface SpanTarget {
+
+    /**
+     * Draws part of a bubble's outline, opaque
+     * @param row   the row of the span
+     * @param left  the first column of the span
+     * @param right the last column of the span, no less than left
+     * @param rgb   the color of the bubble, without alpha
+     */
+    public void outline(int row, int left, int right, int rgb);
+
+    /**
+     * Draws part of a bubble's fill, translucent at StyleTable.FILL_ALPHA
+     * @param row   the row of the span
+     * @param left  the first column of the span
+     * @param right the last column of the span, no less than left
+     * @param rgb   the color of the bubble, without alpha
+     */
+    public void fill(int row, int left, int right, int rgb);
+
+    /**
+     * Draws part of an arc, opaque in StyleTable.ARC_COLOR
+     * @param row   the row of the span
+     * @param left  the first column of the span
+     * @param right the last column of the span, no less than left
+     */
+    public void arc(int row, int left, int right);
+}
@@ -0,0 +1,47 @@
+import java.awt.BasicStroke;
+import java.awt.Color;
+
+/**
+ * Contains code for a style table, the colors and strokes bubbles and arcs are drawn with,
+ *      shared by every way a fractal is drawn or exported
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public class StyleTable {
+
+    /** the stroke every bubble is outlined with */
+    public static final BasicStroke OUTLINE_STROKE = new BasicStroke();
+    /** the color every arc is drawn with */
+    public static final Color ARC_COLOR = Color.LIGHT_GRAY;
+    /** the angle an arc starts at, in degrees counterclockwise from 3 o'clock */
+    public static final int ARC_START = 40;
+    /** the angle an arc covers, in degrees */
+    public static final int ARC_EXTENT = 10;
+    /** the opacity of a bubble's fill */
+    public static final float FILL_ALPHA = .4f;
+    /** the set of 5 pastels a bubble's color can be picked from */
+    public static final Color[] PASTELS = {
+            new Color(255, 255, 176),   //yellow
+            new Color(148, 168, 208),   //blue
+            new Color(221, 212, 240),   //purple
+            new Color(251, 182, 209),   //pink
+            new Color(255, 223, 211)    //orange
+    };
+
+    /**
+     * Private constructor, only static members are used
+     */
+    private StyleTable() {
+    }
+
+    /**
+     * Picks an index into the set of 5 pastels from a bubble's seed,
+     *      orange being twice as likely as the others
+     * @param nodeSeed  the seed of the bubble, from NodeRandom.nodeSeed
+     * @return  an index into PASTELS, always the same for the same seed
+     */
+    public static int pastelIndex(long nodeSeed) {
+        int pick = NodeRandom.nextInt(nodeSeed, NodeRandom.PASTEL, 6);
+        return pick == 0 ? PASTELS.length - 1 : pick - 1;
+    }
+}
@@ -0,0 +1,271 @@
+import java.awt.Color;
+import java.awt.geom.Rectangle2D;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Contains code for an SVG exporter, writing a fractal as vector graphics straight to a stream;
+ *      when every subtree on a level is the same, only moved, each level's subtree is written once
+ *      as a symbol that its parent's symbol places once per child, so the file grows with
+ *      depth times childCount rather than with the number of bubbles;
+ *      otherwise each bubble is written as it is generated, without storing the fractal
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public class SvgExporter {
+
+    /** the number of pixels around the image whose bubbles are still written, covering outlines */
+    private static final int EXPORT_MARGIN = 2;
+    /** the number of decimal places coordinates are written with */
+    private static final int DECIMALS = 4;
+    /** ten to the power of DECIMALS, what a number is multiplied by before it is rounded */
+    private static final double DECIMAL_SHIFT = 1e4;
+
+    /** the fractal to be written */
+    private FractalSubject subject;
+    /** the color of the background behind the fractal */
+    private Color background;
+
+    /**
+     * Constructor for an SVG exporter
+     * @param subject       the fractal to be written
+     * @param background    the color of the background behind the fractal
+     */
+    public SvgExporter(FractalSubject subject, Color background) {
+        this.subject = subject;
+        this.background = background;
+    }
+
+    /**
+     * Writes the fractal as an SVG, laid out the same as HeadlessRenderer lays out a PNG of that size
+     * @param out       the stream the SVG is written to, left open
+     * @param width     width of the image in pixels
+     * @param height    height of the image in pixels
+     * @throws IOException if the SVG cannot be written
+     */
+    public void export(OutputStream out, int width, int height) throws IOException {
+        FractalParams params = subject.getParams();
+        double scale = Math.min((double) width / FractalDrawing.WINDOW_DIMENSION.width,
+                                (double) height / FractalDrawing.WINDOW_DIMENSION.height);
+        SvgWriter svg = new SvgWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)),
+                                      scale, params);
+
+        try {
+            writeSvg(svg, params, scale, width, height);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        svg.flush();
+    }
+
+    /**
+     * Private method to export; writes every element of the SVG
+     * @param svg       where the elements are written
+     * @param params    the settings of the fractal being written
+     * @param scale     the number of pixels one unit of fractal coordinates is drawn as
+     * @param width     width of the image in pixels
+     * @param height    height of the image in pixels
+     */
+    private void writeSvg(SvgWriter svg, FractalParams params, double scale, int width, int height) {
+        //the view box is in fractal units, graphics y growing downwards the way it does on the panel
+        svg.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        svg.write("<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\"");
+        svg.write(" width=\"" + width + "\" height=\"" + height + "\" viewBox=\"");
+        svg.number(-width / 2 / scale).write(" ").number(-height / 2 / scale).write(" ");
+        svg.number(width / scale).write(" ").number(height / scale).write("\">\n");
+        svg.writeStyles();
+        svg.write("<rect x=\"").number(-width / 2 / scale).write("\" y=\"").number(-height / 2 / scale);
+        svg.write("\" width=\"").number(width / scale).write("\" height=\"").number(height / scale);
+        svg.write("\" fill=\"").color(background).write("\"/>\n");
+
+        double minRadius = SpanRasterizer.MIN_VISIBLE_RADIUS / scale;
+        if (params.isSelfSimilar()) {
+            svg.writeSymbols(minRadius);
+        } else {
+            double margin = EXPORT_MARGIN / scale;
+            Rectangle2D region = new Rectangle2D.Double(-width / 2 / scale - margin, -height / 2 / scale - margin,
+                                                        width / scale + 2 * margin, height / scale + 2 * margin);
+            subject.walk((level, xCoord, yCoord, radius, color) -> {
+                svg.writeBubble(xCoord, -yCoord, radius, color);
+                return true;
+            }, region, minRadius);
+        }
+        svg.write("</svg>\n");
+    }
+
+    /**
+     * Contains code for an SVG writer, formatting the elements of the SVG onto a writer;
+     *      each color gets a style class, so a bubble is only its position, radius and class
+     */
+    private static class SvgWriter {
+
+        /** where the SVG is written */
+        private final Writer writer;
+        /** the number of pixels one unit of fractal coordinates is drawn as */
+        private final double scale;
+        /** the settings of the fractal being written */
+        private final FractalParams params;
+        /** the style class of each color a bubble can have */
+        private final Map<Color, String> classes;
+        /** builds each number before it is written */
+        private final StringBuilder digits;
+
+        /**
+         * Constructor for an SVG writer
+         * @param writer    where the SVG is written
+         * @param scale     the number of pixels one unit of fractal coordinates is drawn as
+         * @param params    the settings of the fractal being written
+         */
+        SvgWriter(Writer writer, double scale, FractalParams params) {
+            this.writer = writer;
+            this.scale = scale;
+            this.params = params;
+            classes = new HashMap<>();
+            digits = new StringBuilder();
+        }
+
+        /**
+         * Writes text as is
+         * @param text  the text to write
+         * @return  this writer, so writes can be chained
+         * @throws UncheckedIOException if the text cannot be written, so bubbles can be written from a visitor
+         */
+        SvgWriter write(String text) {
+            try {
+                writer.write(text);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
+        /**
+         * Writes a number rounded to DECIMALS places, without trailing zeros
+         * @param value the number to write
+         * @return  this writer, so writes can be chained
+         */
+        SvgWriter number(double value) {
+            long rounded = Math.round(value * DECIMAL_SHIFT);
+            digits.setLength(0);
+            if (rounded < 0) {
+                digits.append('-');
+                rounded = -rounded;
+            }
+            String whole = Long.toString(rounded);
+            if (whole.length() <= DECIMALS) {
+                whole = "0".repeat(DECIMALS + 1 - whole.length()) + whole;
+            }
+            int point = whole.length() - DECIMALS;
+            digits.append(whole, 0, point);
+            int end = whole.length();
+            while (end > point && whole.charAt(end - 1) == '0') {
+                end--;
+            }
+            if (end > point) {
+                digits.append('.').append(whole, point, end);
+            }
+            return write(digits.toString());
+        }
+
+        /**
+         * Writes a color as a hex triplet
+         * @param color the color to write
+         * @return  this writer, so writes can be chained
+         */
+        SvgWriter color(Color color) {
+            return write(String.format("#%06x", color.getRGB() & 0xFFFFFF));
+        }
+
+        /**
+         * Writes the style classes, one per color a bubble can have;
+         *      outlines are kept one pixel wide and drawn under the fill, the same as SpanRasterizer draws them
+         */
+        void writeStyles() {
+            write("<style>\ncircle{stroke-width:").number(StyleTable.OUTLINE_STROKE.getLineWidth() / scale);
+            write(";fill-opacity:").number(StyleTable.FILL_ALPHA).write(";paint-order:stroke}\n");
+            write(".arc{fill:none;stroke:").color(StyleTable.ARC_COLOR).write("}\n");
+            Color[] colors = params.hasRandomPastels() ? StyleTable.PASTELS : new Color[] {params.getColor()};
+            for (Color color : colors) {
+                if (!classes.containsKey(color)) {
+                    String name = "c" + classes.size();
+                    classes.put(color, name);
+                    write("." + name + "{fill:").color(color).write(";stroke:").color(color).write("}\n");
+                }
+            }
+            write("</style>\n");
+        }
+
+        /**
+         * Writes one bubble and its arc
+         * @param xCoord    x coordinate of the bubble, using graphics system
+         * @param yCoord    y coordinate of the bubble, using graphics system
+         * @param radius    radius of the bubble
+         * @param color     the color of the bubble
+         */
+        void writeBubble(double xCoord, double yCoord, double radius, Color color) {
+            write("<circle class=\"").write(classes.get(color)).write("\" cx=\"").number(xCoord);
+            write("\" cy=\"").number(yCoord).write("\" r=\"").number(radius).write("\"/>\n");
+
+            //an arc from StyleTable.ARC_START counterclockwise, which on the y down graphics system is a negative sweep
+            double arcRadius = radius * FractalGeometry.ARC_RATIO;
+            double start = Math.toRadians(StyleTable.ARC_START);
+            double end = Math.toRadians(StyleTable.ARC_START + StyleTable.ARC_EXTENT);
+            write("<path class=\"arc\" stroke-width=\"").number(Math.max(arcRadius / 10, 1 / scale));
+            write("\" d=\"M").number(xCoord + arcRadius * Math.cos(start)).write(" ");
+            number(yCoord - arcRadius * Math.sin(start)).write("A").number(arcRadius).write(" ");
+            number(arcRadius).write(" 0 0 0 ").number(xCoord + arcRadius * Math.cos(end)).write(" ");
+            number(yCoord - arcRadius * Math.sin(end)).write("\"/>\n");
+        }
+
+        /**
+         * Writes the fractal as one symbol per level, deepest first, each holding a bubble at its origin
+         *      and a use of the next level's symbol per child, then uses the center bubble's symbol;
+         *      levels too small to see are left out, as they are when bubbles are written one by one
+         * @param minRadius the radius below which bubbles, and everything below them, are left out
+         */
+        void writeSymbols(double minRadius) {
+            int childCount = params.getChildCount();
+            double ratio = (double) params.getChildRatio() / 100;
+            int depth = 0;
+            double[] radii = new double[Math.max(params.getRecurseDepth(), 0)];
+            double radius = FractalGenerator.STARTING_RADIUS;
+            while (depth < radii.length && radius >= minRadius) {
+                radii[depth++] = radius;
+                radius *= ratio;
+            }
+            if (depth == 0) {
+                return;
+            }
+
+            write("<defs>\n");
+            for (int level = depth - 1; level >= 0; level--) {
+                write("<symbol id=\"level" + level + "\" overflow=\"visible\">\n");
+                writeBubble(0, 0, radii[level], params.getColor());
+                for (int child = 0; level + 1 < depth && child < childCount; child++) {
+                    double theta = FractalGenerator.childAngle(child, childCount);
+                    double distance = radii[level] + radii[level + 1];
+                    write("<use xlink:href=\"#level" + (level + 1) + "\" x=\"").number(Math.cos(theta) * distance);
+                    write("\" y=\"").number(-Math.sin(theta) * distance).write("\"/>\n");
+                }
+                write("</symbol>\n");
+            }
+            write("</defs>\n");
+            write("<use xlink:href=\"#level0\"/>\n");
+        }
+
+        /**
+         * Flushes everything written so far through to the stream, leaving it open
+         * @throws IOException if the SVG cannot be written
+         */
+        void flush() throws IOException {
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,295 @@
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Contains code for a symmetric renderer, drawing a fractal with rotational symmetry
+ *      by generating and rasterizing only the first child's subtree with a SpanRasterizer,
+ *      then stamping that raster once per child, turned around the center bubble,
+ *      in the order the children are drawn;
+ *      the sector raster covers the circle every turn of the panel fits in, so no copy leaves a corner out;
+ *      the copies are stamped nearest neighbor, keeping outlines one pixel wide as they are drawn,
+ *      and the arcs are left off the sector and drawn over every copy afterwards, unturned,
+ *      so they all face the same way;
+ *      turning a raster moves some pixels by one and the copies blend as whole layers,
+ *      so the drawing is close to, but not pixel for pixel, the fractal drawn bubble by bubble
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public class SymmetricRenderer {
+
+    /** the dimensions of the panel to be drawn on */
+    private Dimension displaySize;
+    /** the number of pixels one unit of fractal coordinates is drawn as */
+    private double scale;
+    /** the number of pixels from the center bubble's pixel to the edge of the sector raster */
+    private int sectorReach;
+    /** draws the center bubble and the arcs onto the panel */
+    private SpanRasterizer rasterizer;
+    /** draws the first child's subtree onto the sector raster */
+    private SpanRasterizer sectorRasterizer;
+    /** the number of bubbles the last draw put on the panel */
+    private long bubblesDrawn;
+
+    /**
+     * Constructor for a symmetric renderer
+     * @param displaySize   the dimensions of the panel to be drawn on
+     * @param scale         the number of pixels one unit of fractal coordinates is drawn as
+     */
+    public SymmetricRenderer(Dimension displaySize, double scale) {
+        this.displaySize = displaySize;
+        this.scale = scale;
+        //the panel turned by any angle, with a pixel to spare, fits inside this
+        sectorReach = (int) Math.ceil(Math.hypot(displaySize.width / 2 + 1, displaySize.height / 2 + 1));
+        rasterizer = new SpanRasterizer(displaySize, scale);
+        sectorRasterizer = new SpanRasterizer(new Dimension(2 * sectorReach + 1, 2 * sectorReach + 1), scale);
+    }
+
+    /**
+     * Checks whether a fractal can be drawn by this renderer
+     * @param snapshot  the fractal to be drawn
+     * @return  true if the fractal is symmetric, false if it has to be drawn bubble by bubble
+     */
+    public boolean canDraw(FractalSnapshot snapshot) {
+        return snapshot.getParams().isSymmetric();
+    }
+
+    /**
+     * Draws the fractal over whatever the image already holds
+     * @param image         an image of TYPE_INT_RGB the size of the panel, already filled with the background
+     * @param snapshot      the fractal to be drawn, which canDraw accepts
+     * @param isCancelled   returns true once the drawing is obsolete, checked once per bubble
+     * @return  true if the whole fractal was drawn, false if it was cancelled partway
+     * @throws java.util.concurrent.CancellationException if the fractal is not symmetric,
+     *      or the subject's geometry settings have changed since the snapshot
+     */
+    public boolean draw(BufferedImage image, FractalSnapshot snapshot, BooleanSupplier isCancelled) {
+        bubblesDrawn = 0;
+        int childCount = snapshot.getParams().getChildCount();
+        int sectorSize = 2 * sectorReach + 1;
+        BufferedImage sector = new BufferedImage(sectorSize, sectorSize, BufferedImage.TYPE_INT_ARGB_PRE);
+        SectorSource sectorSource = new SectorSource(snapshot, symmetricRegion());
+        if (!sectorRasterizer.draw(sectorSource, new ShapeFilter(SpanRasterizer.pixelTarget(sector), false),
+                                   sectorSize, 0, sectorSize, isCancelled)) {
+            return false;
+        }
+        if (sectorSource.centerColor != null
+                && !rasterizer.draw(sectorSource::walkCenter, image, 0, image.getHeight(), isCancelled)) {
+            return false;
+        }
+        if (sectorSource.sectorSize == 0) {
+            return true;
+        }
+
+        //the raster turns about the middle of the center bubble's pixel,
+        //  the way the bubbles are turned about the center bubble
+        double centerX = displaySize.width / 2 + .5;
+        double centerY = displaySize.height / 2 + .5;
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                               RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            for (int child = 0; child < childCount; child++) {
+                //graphics y grows downwards, so a counterclockwise turn is a negative angle
+                AffineTransform turn = AffineTransform.getRotateInstance(-child * (2 * Math.PI) / childCount,
+                                                                         centerX, centerY);
+                turn.translate(displaySize.width / 2 - sectorReach, displaySize.height / 2 - sectorReach);
+                g.drawImage(sector, turn, null);
+            }
+        } finally {
+            g.dispose();
+        }
+        if (!rasterizer.draw(new TurnedSource(sectorSource, childCount),
+                             new ShapeFilter(SpanRasterizer.pixelTarget(image), true),
+                             image.getWidth(), 0, image.getHeight(), isCancelled)) {
+            return false;
+        }
+
+        bubblesDrawn = 1 + sectorSource.sectorSize * childCount;
+        return true;
+    }
+
+    /**
+     * @return  the number of bubbles the last draw put on the panel, counting every copy
+     */
+    public long getBubblesDrawn() {
+        return bubblesDrawn;
+    }
+
+    /**
+     * Returns the region the first child's subtree is generated for;
+     *      the panel turned by any angle fits inside it, so nothing that a copy
+     *      would turn onto the panel is skipped
+     * @return  the square around the center bubble holding every turn of the panel, using cartesian system
+     */
+    private Rectangle2D symmetricRegion() {
+        double reach = sectorReach / scale;
+        return new Rectangle2D.Double(-reach, -reach, 2 * reach, 2 * reach);
+    }
+
+    /**
+     * Contains code for a sector source, the first child's subtree of a fractal;
+     *      the center bubble is held back as it is walked, to be drawn on its own with walkCenter
+     */
+    private static class SectorSource implements FractalSource {
+
+        /** the fractal the sector is walked from */
+        private final FractalSnapshot snapshot;
+        /** the region the sector is walked over, whatever region a walk asks for, using cartesian system */
+        private final Rectangle2D sectorRegion;
+        /** x coordinate of the center bubble, using cartesian system */
+        private double centerX;
+        /** y coordinate of the center bubble, using cartesian system */
+        private double centerY;
+        /** radius of the center bubble */
+        private double centerRadius;
+        /** color of the center bubble, null until it is walked */
+        private Color centerColor;
+        /** the number of bubbles walked in the first child's subtree */
+        private long sectorSize;
+
+        /**
+         * Constructor for a sector source
+         * @param snapshot      the fractal the sector is walked from, which must be symmetric
+         * @param sectorRegion  the region the sector is walked over, whatever region a walk asks for,
+         *                          using cartesian system
+         */
+        SectorSource(FractalSnapshot snapshot, Rectangle2D sectorRegion) {
+            this.snapshot = snapshot;
+            this.sectorRegion = sectorRegion;
+        }
+
+        /**
+         * @inheritdoc
+         *      every bubble but the center one, which is only held onto;
+         *      the sector is walked over the region every turn of the panel fits in, not the one asked for
+         */
+        @Override
+        public boolean walk(FractalVisitor visitor, Rectangle2D region, double minRadius) {
+            sectorSize = 0;
+            return snapshot.walkSector((level, xCoord, yCoord, radius, color) -> {
+                if (level == 0) {
+                    centerX = xCoord;
+                    centerY = yCoord;
+                    centerRadius = radius;
+                    centerColor = color;
+                    return true;
+                }
+                sectorSize++;
+                return visitor.visit(level, xCoord, yCoord, radius, color);
+            }, sectorRegion, minRadius);
+        }
+
+        /**
+         * Hands the center bubble held onto by the last walk to the visitor
+         * @param visitor   the visitor the bubble is handed to
+         * @param region    the region of interest, using cartesian system, not needed for one bubble
+         * @param minRadius the radius below which the bubble is skipped
+         * @return  true if the bubble was visited or skipped, false if the visitor stopped the walk
+         */
+        boolean walkCenter(FractalVisitor visitor, Rectangle2D region, double minRadius) {
+            return centerRadius < minRadius || visitor.visit(0, centerX, centerY, centerRadius, centerColor);
+        }
+    }
+
+    /**
+     * Contains code for a turned source, every child's copy of the first child's subtree,
+     *      each bubble turned around the center bubble as the copy is, in the order the copies are stamped
+     */
+    private static class TurnedSource implements FractalSource {
+
+        /** the first child's subtree */
+        private final SectorSource sectorSource;
+        /** the number of children a parent has, and so of copies */
+        private final int childCount;
+
+        /**
+         * Constructor for a turned source
+         * @param sectorSource  the first child's subtree
+         * @param childCount    the number of children a parent has, and so of copies
+         */
+        TurnedSource(SectorSource sectorSource, int childCount) {
+            this.sectorSource = sectorSource;
+            this.childCount = childCount;
+        }
+
+        /**
+         * @inheritdoc
+         */
+        @Override
+        public boolean walk(FractalVisitor visitor, Rectangle2D region, double minRadius) {
+            for (int child = 0; child < childCount; child++) {
+                double angle = child * (2 * Math.PI) / childCount;
+                double cos = Math.cos(angle);
+                double sin = Math.sin(angle);
+                if (!sectorSource.walk((level, xCoord, yCoord, radius, color) -> {
+                    double turnedX = xCoord * cos - yCoord * sin;
+                    double turnedY = xCoord * sin + yCoord * cos;
+                    if (region != null && !FractalGenerator.intersects(region, turnedX, turnedY, radius)) {
+                        return true;
+                    }
+                    return visitor.visit(level, turnedX, turnedY, radius, color);
+                }, region, minRadius)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Contains code for a shape filter, handing a target either only the arcs or everything but them
+     */
+    private static class ShapeFilter implements SpanTarget {
+
+        /** the target the spans kept are handed to */
+        private final SpanTarget target;
+        /** true if only the arcs are kept, false if everything but them is */
+        private final boolean keepsArcs;
+
+        /**
+         * Constructor for a shape filter
+         * @param target    the target the spans kept are handed to
+         * @param keepsArcs true if only the arcs are kept, false if everything but them is
+         */
+        ShapeFilter(SpanTarget target, boolean keepsArcs) {
+            this.target = target;
+            this.keepsArcs = keepsArcs;
+        }
+
+        /**
+         * @inheritdoc
+         */
+        @Override
+        public void outline(int row, int left, int right, int rgb) {
+            if (!keepsArcs) {
+                target.outline(row, left, right, rgb);
+            }
+        }
+
+        /**
+         * @inheritdoc
+         */
+        @Override
+        public void fill(int row, int left, int right, int rgb) {
+            if (!keepsArcs) {
+                target.fill(row, left, right, rgb);
+            }
+        }
+
+        /**
+         * @inheritdoc
+         */
+        @Override
+        public void arc(int row, int left, int right) {
+            if (keepsArcs) {
+                target.arc(row, left, right);
+            }
+        }
+    }
+}
@@ -0,0 +1,292 @@
+import java.awt.Color;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+
+/**
+ * Contains code for a tile renderer, drawing a fractal as square tiles of a scaled plane
+ *      for a view that can be panned and zoomed; tiles are drawn on background threads
+ *      and kept in a bounded least recently used cache;
+ *      each tile walks only the subtrees that reach it and are large enough to see,
+ *      and zooming in recurses deeper than the fractal's depth by as many levels as the zoom has shrunk,
+ *      so the work follows what is on screen rather than the size of the whole tree
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public class TileRenderer {
+
+    /** the width and height of a tile, in pixels */
+    public static final int TILE_SIZE = 256;
+    /** the number of zoom levels it takes to double the scale */
+    public static final int ZOOM_STEPS = 4;
+    /**
+     * the deepest zoom level, keeping the center bubble's radius in pixels well within an int
+     *      so every bubble that touches a tile can be drawn on it
+     */
+    public static final int MAX_ZOOM = 21 * ZOOM_STEPS;
+    /** the most tiles kept in the cache */
+    private static final int MAX_TILES = 128;
+    /** where tiles that fail to draw are logged */
+    private static final Logger LOGGER = Logger.getLogger(TileRenderer.class.getName());
+
+    /** the color behind the fractal */
+    private final Color background;
+    /** run on the event thread whenever a tile is finished */
+    private final Runnable tileFinished;
+    /** run on the event thread whenever a tile fails to draw */
+    private final Consumer<RuntimeException> tileFailed;
+    /** the threads tiles are drawn on */
+    private final ExecutorService executor;
+    /** the cached tiles, least recently used first */
+    private final LinkedHashMap<TileKey, Tile> tiles;
+    /** the tiles being drawn, each with the version of the snapshot it is drawn from */
+    private final Map<TileKey, Long> pending;
+    /** the version of the snapshot tiles are wanted from */
+    private volatile long version;
+    /** the tiles the view wants, anything else still being drawn is given up */
+    private volatile Set<TileKey> wanted;
+
+    /**
+     * Constructor for a tile renderer
+     * @param background    the color behind the fractal
+     * @param tileFinished  run on the event thread whenever a tile is finished, usually a repaint
+     * @param tileFailed    run on the event thread whenever a tile fails to draw, usually showing the failure
+     */
+    public TileRenderer(Color background, Runnable tileFinished, Consumer<RuntimeException> tileFailed) {
+        this.background = background;
+        this.tileFinished = tileFinished;
+        this.tileFailed = tileFailed;
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "TileRenderer tile");
+            thread.setDaemon(true);
+            return thread;
+        });
+        tiles = new LinkedHashMap<>(16, .75f, true);
+        pending = new ConcurrentHashMap<>();
+        wanted = new HashSet<>();
+    }
+
+    //------------------------------------------------------------------------
+    //                      Static Methods
+    //------------------------------------------------------------------------
+
+    /**
+     * Returns the number of pixels one unit of fractal coordinates is drawn as at a zoom level
+     * @param zoom  the zoom level, 0 being one pixel per unit
+     * @return  the scale of the zoom level
+     */
+    public static double scale(int zoom) {
+        return Math.pow(2, (double) zoom / ZOOM_STEPS);
+    }
+
+    /**
+     * Returns how deep a fractal recurses when zoomed in; every level shrinks bubbles by the child ratio,
+     *      so each time the zoom grows by that much one more level is as large
+     *      as the deepest level was unzoomed
+     * @param params    the fractal's settings
+     * @param scale     the number of pixels one unit of fractal coordinates is drawn as
+     * @return  the fractal's depth, plus a level for each time the zoom undoes a child's shrinking
+     */
+    static int zoomedDepth(FractalParams params, double scale) {
+        if (scale <= 1) {
+            return params.getRecurseDepth();
+        }
+        double shrink = -Math.log((double) params.getChildRatio() / 100);
+        return params.getRecurseDepth() + (int) Math.ceil(Math.log(scale) / shrink);
+    }
+
+    //------------------------------------------------------------------------
+    //                      Instance Methods
+    //------------------------------------------------------------------------
+
+    /**
+     * Returns a cached tile, marking it most recently used; the tile may be from an older snapshot
+     *      than the one last requested, and can be shown until its replacement is drawn
+     * @param zoom  the zoom level of the tile
+     * @param tileX the column of the tile, 0 starting at the center bubble and growing right
+     * @param tileY the row of the tile, 0 starting at the center bubble and growing down
+     * @return  the tile, or null if it isn't cached
+     */
+    public synchronized BufferedImage getTile(int zoom, long tileX, long tileY) {
+        Tile tile = tiles.get(new TileKey(zoom, tileX, tileY));
+        return tile == null ? null : tile.image;
+    }
+
+    /**
+     * Asks for the tiles covering a view to be drawn from a snapshot, nearest the middle of the view first;
+     *      tiles already cached from that snapshot, or being drawn from it, are not drawn again,
+     *      and tiles still being drawn for an earlier request that this one doesn't cover are given up
+     * @param snapshot  the fractal to draw
+     * @param zoom      the zoom level of the view
+     * @param view      the view, in pixels of the scaled plane right of and below the center bubble
+     */
+    public void request(FractalSnapshot snapshot, int zoom, Rectangle2D view) {
+        long firstX = Math.floorDiv((long) Math.floor(view.getMinX()), TILE_SIZE);
+        long firstY = Math.floorDiv((long) Math.floor(view.getMinY()), TILE_SIZE);
+        long lastX = Math.floorDiv((long) Math.ceil(view.getMaxX()) - 1, TILE_SIZE);
+        long lastY = Math.floorDiv((long) Math.ceil(view.getMaxY()) - 1, TILE_SIZE);
+        List<TileKey> keys = new ArrayList<>();
+        for (long tileY = firstY; tileY <= lastY; tileY++) {
+            for (long tileX = firstX; tileX <= lastX; tileX++) {
+                keys.add(new TileKey(zoom, tileX, tileY));
+            }
+        }
+        double middleX = view.getCenterX() / TILE_SIZE - .5;
+        double middleY = view.getCenterY() / TILE_SIZE - .5;
+        keys.sort(Comparator.comparingDouble(key -> Math.hypot(key.tileX - middleX, key.tileY - middleY)));
+
+        long snapshotVersion = snapshot.getVersion();
+        version = snapshotVersion;
+        wanted = new HashSet<>(keys);
+        for (TileKey key : keys) {
+            synchronized (this) {
+                Tile tile = tiles.get(key);
+                if (tile != null && tile.version == snapshotVersion) {
+                    continue;
+                }
+            }
+            Long drawing = pending.put(key, snapshotVersion);
+            if (drawing == null || drawing != snapshotVersion) {
+                executor.execute(() -> drawTile(snapshot, key));
+            }
+        }
+    }
+
+    /**
+     * Draws a tile and caches it, unless it is given up first
+     * @param snapshot  the fractal to draw
+     * @param key       the tile to draw
+     */
+    private void drawTile(FractalSnapshot snapshot, TileKey key) {
+        long snapshotVersion = snapshot.getVersion();
+        BooleanSupplier isCancelled = () -> version != snapshotVersion || !wanted.contains(key);
+        try {
+            if (isCancelled.getAsBoolean()) {
+                return;     //scrolled or zoomed away before it started
+            }
+            long start = System.nanoTime();
+            BufferedImage image = render(snapshot, key, isCancelled);
+            FractalMetrics.record("tile", System.nanoTime() - start);
+            if (image == null || isCancelled.getAsBoolean()) {
+                return;
+            }
+            synchronized (this) {
+                tiles.put(key, new Tile(snapshotVersion, image));
+                while (tiles.size() > MAX_TILES) {
+                    tiles.remove(tiles.keySet().iterator().next());
+                }
+            }
+            SwingUtilities.invokeLater(tileFinished);
+        } catch (CancellationException e) {
+            //the subject's geometry settings changed, a newer snapshot will ask for the tile again
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING,
+                       String.format("tile (%d, %d) at zoom %d failed", key.tileX, key.tileY, key.zoom), e);
+            FractalMetrics.increment("tile.failed");
+            SwingUtilities.invokeLater(() -> tileFailed.accept(e));
+        } finally {
+            pending.remove(key, snapshotVersion);
+        }
+    }
+
+    /**
+     * Draws one tile, walking only the subtrees that reach it
+     * @param snapshot      the fractal to draw
+     * @param key           the tile to draw
+     * @param isCancelled   returns true once the tile is no longer wanted, checked once per bubble
+     * @return  the tile, or null if it was given up partway
+     */
+    private BufferedImage render(FractalSnapshot snapshot, TileKey key, BooleanSupplier isCancelled) {
+        double scale = scale(key.zoom);
+        double originX = (double) key.tileX * TILE_SIZE;
+        double originY = (double) key.tileY * TILE_SIZE;
+
+        BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+        Arrays.fill(((DataBufferInt) image.getRaster().getDataBuffer()).getData(), background.getRGB());
+        FractalSnapshot zoomed = snapshot.extend(zoomedDepth(snapshot.getParams(), scale));
+        SpanRasterizer rasterizer = new SpanRasterizer(scale, originX, originY);
+        return rasterizer.draw(zoomed, image, 0, TILE_SIZE, isCancelled) ? image : null;
+    }
+
+    //------------------------------------------------------------------------
+    //                      Inner Classes
+    //------------------------------------------------------------------------
+
+    /**
+     * Contains code for a tile key, where a tile sits in the scaled plane of its zoom level
+     */
+    private static class TileKey {
+
+        /** the zoom level of the tile */
+        private final int zoom;
+        /** the column of the tile, 0 starting at the center bubble and growing right */
+        private final long tileX;
+        /** the row of the tile, 0 starting at the center bubble and growing down */
+        private final long tileY;
+
+        /**
+         * Constructor for a tile key
+         * @param zoom  the zoom level of the tile
+         * @param tileX the column of the tile
+         * @param tileY the row of the tile
+         */
+        TileKey(int zoom, long tileX, long tileY) {
+            this.zoom = zoom;
+            this.tileX = tileX;
+            this.tileY = tileY;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof TileKey)) {
+                return false;
+            }
+            TileKey key = (TileKey) other;
+            return zoom == key.zoom && tileX == key.tileX && tileY == key.tileY;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(zoom, tileX, tileY);
+        }
+    }
+
+    /**
+     * Contains code for a cached tile, along with the version of the snapshot it was drawn from
+     */
+    private static class Tile {
+
+        /** the version of the snapshot the tile was drawn from */
+        private final long version;
+        /** the tile as drawn */
+        private final BufferedImage image;
+
+        /**
+         * Constructor for a tile
+         * @param version   the version of the snapshot the tile was drawn from
+         * @param image     the tile as drawn
+         */
+        Tile(long version, BufferedImage image) {
+            this.version = version;
+            this.image = image;
+        }
+    }
+}
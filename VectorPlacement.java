@@ -0,0 +1,125 @@
+import java.awt.geom.Rectangle2D;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Contains code for placing the children of a run of parents when there is no bedlam deviation,
+ *      a whole vector of children at a time with the incubating Vector API;
+ *      a level's children fill contiguous slots, a parent's after the one before it,
+ *      so the vectors run straight across parents rather than stopping at each parent's last child,
+ *      and are full however few children a parent has;
+ *      the class is only loaded once FractalGenerator finds the jdk.incubator.vector module,
+ *      which the JVM must be started with, otherwise children are placed one at a time
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+final class VectorPlacement {
+
+    /** the most parents placed by one call to place, so its arrays stay small enough to reuse */
+    static final int CHUNK_PARENTS = 256;
+    /** the widest vector of doubles the processor handles well */
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    /**
+     * Private constructor, only static methods are used
+     */
+    private VectorPlacement() {
+    }
+
+    /**
+     * Returns a child's unit offsets repeated for a vector's worth of parents,
+     *      so the offsets of a run of children starting at a parent's first child are read straight through
+     * @param units         the offset of each child from its parent, on a unit circle
+     * @param childCount    the number of children a parent has
+     * @return  the offsets of every child of a vector's worth of parents, in slot order
+     */
+    static double[] tile(double[] units, int childCount) {
+        double[] tiled = new double[childCount * SPECIES.length()];
+        for (int slot = 0; slot < tiled.length; slot++) {
+            tiled[slot] = units[slot % childCount];
+        }
+        return tiled;
+    }
+
+    /**
+     * Returns which parent each child of a vector's worth of parents belongs to,
+     *      the index map a vector of children gathers its parents' coordinates with
+     * @param childCount    the number of children a parent has
+     * @return  the parent of every child of a vector's worth of parents, counted from the first, in slot order
+     */
+    static int[] parentMap(int childCount) {
+        int[] parents = new int[childCount * SPECIES.length()];
+        for (int slot = 0; slot < parents.length; slot++) {
+            parents[slot] = slot / childCount;
+        }
+        return parents;
+    }
+
+    /**
+     * Places every child of a run of parents, each coordinate being its unit offset times the distance
+     *      plus its parent's, rounded exactly as when the children are placed one at a time;
+     *      the children of the parents past the last whole vector's worth are placed one at a time
+     * @param tiledX        the x offsets from tile
+     * @param tiledY        the y offsets from tile
+     * @param parentMap     the parent of each child, from parentMap
+     * @param childCount    the number of children a parent has
+     * @param parentX       the x coordinate of each parent
+     * @param parentY       the y coordinate of each parent
+     * @param parentCount   the number of parents whose children are placed
+     * @param distance      the distance from a parent's center to each of its children's, the same for every parent
+     * @param viewport      the region children must reach to be kept, or null to keep every child
+     * @param extent        the farthest a child's subtree reaches from the child's center
+     * @param placedX       filled with the x coordinate of each child, parentCount times childCount long at least
+     * @param placedY       filled with the y coordinate of each child, parentCount times childCount long at least
+     * @param kept          filled with whether each child reaches the viewport, as long as placedX
+     */
+    static void place(double[] tiledX, double[] tiledY, int[] parentMap, int childCount,
+                      double[] parentX, double[] parentY, int parentCount, double distance,
+                      Rectangle2D viewport, double extent, double[] placedX, double[] placedY, boolean[] kept) {
+        int lanes = SPECIES.length();
+        int groupSlots = childCount * lanes;
+        int parent = 0;
+        for (; parent + lanes <= parentCount; parent += lanes) {
+            int firstSlot = parent * childCount;
+            for (int offset = 0; offset < groupSlots; offset += lanes) {
+                DoubleVector centerX = DoubleVector.fromArray(SPECIES, parentX, parent, parentMap, offset);
+                DoubleVector centerY = DoubleVector.fromArray(SPECIES, parentY, parent, parentMap, offset);
+                //a multiply then an add, not a fused multiply-add, so each coordinate rounds as the scalar code's does
+                DoubleVector x = DoubleVector.fromArray(SPECIES, tiledX, offset).mul(distance).add(centerX);
+                DoubleVector y = DoubleVector.fromArray(SPECIES, tiledY, offset).mul(distance).add(centerY);
+                x.intoArray(placedX, firstSlot + offset);
+                y.intoArray(placedY, firstSlot + offset);
+                reaches(x, y, viewport, extent).intoArray(kept, firstSlot + offset);
+            }
+        }
+        for (int slot = parent * childCount; slot < parentCount * childCount; slot++) {
+            double x = tiledX[slot % childCount] * distance + parentX[slot / childCount];
+            double y = tiledY[slot % childCount] * distance + parentY[slot / childCount];
+            placedX[slot] = x;
+            placedY[slot] = y;
+            kept[slot] = viewport == null || FractalGenerator.intersects(viewport, x, y, extent);
+        }
+    }
+
+    /**
+     * Private method to place; checks which of a vector of children reach the viewport,
+     *      with the same distance to it as FractalGenerator.intersects, lane by lane
+     * @param x         the x coordinate of each child
+     * @param y         the y coordinate of each child
+     * @param viewport  the region children must reach to be kept, or null to keep every child
+     * @param extent    the farthest a child's subtree reaches from the child's center
+     * @return  a mask of the children to keep
+     */
+    private static VectorMask<Double> reaches(DoubleVector x, DoubleVector y, Rectangle2D viewport, double extent) {
+        if (viewport == null) {
+            return SPECIES.maskAll(true);
+        }
+        DoubleVector dx = DoubleVector.broadcast(SPECIES, viewport.getMinX()).sub(x)
+                                      .max(x.sub(viewport.getMaxX())).max(0);
+        DoubleVector dy = DoubleVector.broadcast(SPECIES, viewport.getMinY()).sub(y)
+                                      .max(y.sub(viewport.getMaxY())).max(0);
+        return dx.mul(dx).add(dy.mul(dy)).compare(VectorOperators.LE, extent * extent);
+    }
+}
@@ -0,0 +1,119 @@
+import benchmarks.Workload;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * Contains code for a fractal workload, the benchmarks' way into the fractal code from their named package;
+ *      everything is laid out the way the drawing window lays it out
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public class FractalWorkload implements Workload {
+
+    /** the dimensions of the drawing window */
+    private static final Dimension SIZE = FractalDrawing.WINDOW_DIMENSION;
+    /** the color the fractal is drawn with */
+    private static final Color COLOR = Color.RED;
+    /** the color behind the fractal */
+    private static final Color BACKGROUND = Color.BLACK;
+
+    /** the number of levels of the fractal */
+    private final int recurseDepth;
+    /** the ratio of a child's radius to its parent's, in percent */
+    private final int childRatio;
+    /** the number of children a parent has */
+    private final int childCount;
+    /** the level of deviation of each bubble */
+    private final int bedlamLevel;
+    /** draws the geometry for paint */
+    private final SpanRasterizer rasterizer;
+    /** the image paint draws into */
+    private final BufferedImage image;
+    /** the geometry paint draws, null until prepared */
+    private FractalGeometry geometry;
+    /** the palette raster recolor colors, null until prepared */
+    private PaletteRaster raster;
+    /** the colors recolor colors the raster with */
+    private Color[] palette;
+
+    /**
+     * Constructor for a fractal workload, with nothing prepared
+     * @param recurseDepth  the number of levels of the fractal
+     * @param childRatio    the ratio of a child's radius to its parent's, in percent
+     * @param childCount    the number of children a parent has
+     * @param bedlamLevel   the level of deviation of each bubble
+     */
+    public FractalWorkload(int recurseDepth, int childRatio, int childCount, int bedlamLevel) {
+        this.recurseDepth = recurseDepth;
+        this.childRatio = childRatio;
+        this.childCount = childCount;
+        this.bedlamLevel = bedlamLevel;
+        rasterizer = new SpanRasterizer(SIZE, 1);
+        image = new BufferedImage(SIZE.width, SIZE.height, BufferedImage.TYPE_INT_RGB);
+        palette = FractalGenerator.palette(COLOR, false);
+    }
+
+    /**
+     * Returns a new generator set to the fractal, so no cache answers for it
+     * @param observer  attached before the settings are set, handed the fractal's snapshot; null for none
+     * @return  the generator
+     */
+    private FractalGenerator newGenerator(FractalObserver observer) {
+        FractalGenerator generator = new FractalGenerator();
+        generator.setViewport(new Rectangle2D.Double(-SIZE.width / 2, -SIZE.height / 2, SIZE.width, SIZE.height),
+                              SpanRasterizer.MIN_VISIBLE_RADIUS);
+        if (observer != null) {
+            generator.attach(observer);
+        }
+        generator.setParams(recurseDepth, childRatio, childCount, bedlamLevel, COLOR, false);
+        return generator;
+    }
+
+    /**
+     * @inheritdoc
+     */
+    @Override
+    public Object generate() {
+        return newGenerator(null).getData();
+    }
+
+    /**
+     * @inheritdoc
+     */
+    @Override
+    public void prepareGeometry() {
+        geometry = newGenerator(null).getData();
+    }
+
+    /**
+     * @inheritdoc
+     */
+    @Override
+    public Object paint() {
+        Arrays.fill(((DataBufferInt) image.getRaster().getDataBuffer()).getData(), BACKGROUND.getRGB());
+        rasterizer.draw(geometry, image, 0, image.getHeight(), () -> false);
+        return image;
+    }
+
+    /**
+     * @inheritdoc
+     */
+    @Override
+    public void prepareRaster() {
+        FractalSnapshot[] snapshot = new FractalSnapshot[1];
+        newGenerator(latest -> snapshot[0] = latest);
+        raster = PaletteRaster.draw(snapshot[0], SIZE, () -> false);
+    }
+
+    /**
+     * @inheritdoc
+     */
+    @Override
+    public Object recolor() {
+        return raster.toImage(palette, BACKGROUND);
+    }
+}
@@ -0,0 +1,130 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Contains the benchmarks of generating, painting and recoloring a fractal, across the settings the gui allows;
+ *      the parameters default to every slider position, narrow them with JMH's -p option,
+ *      e.g. -p recurseDepth=6,7 -p childCount=5
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class FractalBenchmark {
+
+    /**
+     * Generates the fractal from nothing, every time
+     * @param settings  the fractal generated
+     * @return  the geometry
+     */
+    @Benchmark
+    public Object generate(Settings settings) {
+        return settings.workload.generate();
+    }
+
+    /**
+     * Paints the fractal's stored geometry with the span rasterizer, the way the drawing window does
+     * @param settings  the fractal painted, its geometry already generated
+     * @return  the painted image
+     */
+    @Benchmark
+    public Object paint(Painting settings) {
+        return settings.workload.paint();
+    }
+
+    /**
+     * Recolors the fractal from its palette raster, the way the drawing window does when only the color changes
+     * @param settings  the fractal recolored, its palette raster already drawn
+     * @return  the recolored image
+     */
+    @Benchmark
+    public Object recolor(Recoloring settings) {
+        return settings.workload.recolor();
+    }
+
+    //------------------------------------------------------------------------
+    //                      Inner Classes
+    //------------------------------------------------------------------------
+
+    /**
+     * Contains the settings of the fractal benchmarked, every slider position unless narrowed
+     */
+    @State(Scope.Benchmark)
+    public static class Settings {
+
+        /** the number of levels of the fractal */
+        @Param({"2", "3", "4", "5", "6", "7", "8"})
+        public int recurseDepth;
+        /** the ratio of a child's radius to its parent's, in percent */
+        @Param({"20", "25", "30", "35", "40", "45", "50", "55", "60", "65", "70"})
+        public int childRatio;
+        /** the number of children a parent has */
+        @Param({"1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11"})
+        public int childCount;
+        /** the level of deviation of each bubble */
+        @Param({"0", "1", "2", "3", "4"})
+        public int bedlamLevel;
+        /** the fractal's workload */
+        Workload workload;
+
+        /**
+         * Creates the workload, and prepares whatever the benchmark needs before it is measured
+         * @throws ReflectiveOperationException if the workload's implementation is not on the class path
+         */
+        @Setup(Level.Trial)
+        public void setUp() throws ReflectiveOperationException {
+            workload = Workload.create(recurseDepth, childRatio, childCount, bedlamLevel);
+            prepare();
+        }
+
+        /**
+         * Prepares whatever the benchmark needs before it is measured, nothing for generate
+         */
+        void prepare() {
+        }
+    }
+
+    /**
+     * Contains the settings of a fractal painted, its geometry generated before it is measured
+     */
+    public static class Painting extends Settings {
+
+        /**
+         * @inheritdoc
+         */
+        @Override
+        void prepare() {
+            workload.prepareGeometry();
+        }
+    }
+
+    /**
+     * Contains the settings of a fractal recolored, its palette raster drawn before it is measured
+     */
+    public static class Recoloring extends Settings {
+
+        /**
+         * @inheritdoc
+         */
+        @Override
+        void prepare() {
+            workload.prepareRaster();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package benchmarks;
+
+/**
+ * Contains the methods a workload must contain, one fractal's settings ready to be generated, painted
+ *      and recolored; JMH only runs benchmarks in a named package, and the fractal code sits in the default
+ *      package, which no named package can refer to, so the benchmarks reach it through this interface,
+ *      implemented by FractalWorkload in the default package and loaded by name
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+public interface Workload {
+
+    /** the name of the class implementing this interface, in the default package */
+    public static final String IMPLEMENTATION = "FractalWorkload";
+
+    /**
+     * Creates the workload for one fractal
+     * @param recurseDepth  the number of levels of the fractal
+     * @param childRatio    the ratio of a child's radius to its parent's, in percent
+     * @param childCount    the number of children a parent has
+     * @param bedlamLevel   the level of deviation of each bubble
+     * @return  the workload, with nothing prepared yet
+     * @throws ReflectiveOperationException if the implementation is not on the class path
+     */
+    public static Workload create(int recurseDepth, int childRatio, int childCount, int bedlamLevel)
+            throws ReflectiveOperationException {
+        return (Workload) Class.forName(IMPLEMENTATION)
+                .getDeclaredConstructor(int.class, int.class, int.class, int.class)
+                .newInstance(recurseDepth, childRatio, childCount, bedlamLevel);
+    }
+
+    /**
+     * Generates the fractal's geometry from nothing, with no cache to answer for it
+     * @return  the geometry, for the benchmark to consume
+     */
+    public Object generate();
+
+    /**
+     * Generates the geometry paint draws, unmeasured
+     */
+    public void prepareGeometry();
+
+    /**
+     * Paints the prepared geometry into an image the size of the drawing window, over the background
+     * @return  the image, for the benchmark to consume
+     */
+    public Object paint();
+
+    /**
+     * Draws the palette raster recolor colors, unmeasured
+     */
+    public void prepareRaster();
+
+    /**
+     * Colors the prepared palette raster into an image
+     * @return  the image, for the benchmark to consume
+     */
+    public Object recolor();
+}
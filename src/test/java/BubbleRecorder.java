@@ -0,0 +1,49 @@
+import java.awt.Color;
+import java.util.Arrays;
+
+/**
+ * Contains code for a bubble recorder, a visitor keeping every bubble it is handed bit for bit,
+ *      in the order it was handed them, so two walks can be compared exactly
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+class BubbleRecorder implements FractalVisitor {
+
+    /** the number of fields kept per bubble: level, x, y, radius and color */
+    private static final int FIELDS = 5;
+
+    /** the fields of every bubble recorded, one bubble after another */
+    private long[] fields = new long[FIELDS * 1024];
+    /** the number of fields recorded */
+    private int size;
+
+    /**
+     * @inheritdoc
+     */
+    @Override
+    public boolean visit(int level, double xCoord, double yCoord, double radius, Color color) {
+        if (size + FIELDS > fields.length) {
+            fields = Arrays.copyOf(fields, fields.length * 2);
+        }
+        fields[size++] = level;
+        fields[size++] = Double.doubleToLongBits(xCoord);
+        fields[size++] = Double.doubleToLongBits(yCoord);
+        fields[size++] = Double.doubleToLongBits(radius);
+        fields[size++] = color.getRGB();
+        return true;
+    }
+
+    /**
+     * @return  the number of bubbles recorded
+     */
+    int getBubbleCount() {
+        return size / FIELDS;
+    }
+
+    /**
+     * @return  the fields of every bubble recorded, one bubble after another
+     */
+    long[] getBubbles() {
+        return Arrays.copyOf(fields, size);
+    }
+}
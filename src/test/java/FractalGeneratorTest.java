@@ -0,0 +1,138 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Contains tests for the fractal generator: every way it generates a fractal,
+ *      serially, split into fork/join tasks, into a file or from cached levels,
+ *      gives the same bubbles bit for bit, and the same seed always gives the same bedlam
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+class FractalGeneratorTest {
+
+    /** the color every bubble is drawn with when pastels are off */
+    private static final Color COLOR = new Color(30, 200, 90);
+
+    /**
+     * Creates a generator set to some parameters
+     * @param recurseDepth  the number of times the fractal will recurse
+     * @param childRatio    the ratio of a child to its parent
+     * @param childCount    the number of children a parent will have
+     * @param bedlamLevel   the level of deviation of each bubble
+     * @param seed          the seed every bubble's pastel and deviation are derived from
+     * @return  the generator
+     */
+    private static FractalGenerator generator(int recurseDepth, int childRatio, int childCount, int bedlamLevel,
+                                              long seed) {
+        FractalGenerator generator = new FractalGenerator();
+        generator.setSeed(seed);
+        generator.setParams(recurseDepth, childRatio, childCount, bedlamLevel, COLOR, true);
+        return generator;
+    }
+
+    /**
+     * Records every bubble of a fractal source, in the order it walks them
+     * @param source    the source to walk
+     * @return  the fields of every bubble, one bubble after another
+     */
+    private static long[] record(FractalSource source) {
+        BubbleRecorder recorder = new BubbleRecorder();
+        assertTrue(source.walk(recorder, null, 0));
+        return recorder.getBubbles();
+    }
+
+    /**
+     * The geometry generated a level at a time, split into fork/join tasks, holds the same bubbles
+     *      in the same order as the serial recursive walk; the larger fractals are split into many tasks
+     */
+    @ParameterizedTest
+    @CsvSource({"5, 40, 4, 0", "7, 60, 6, 0", "6, 55, 9, 0", "4, 70, 11, 0",
+                "7, 60, 6, 3", "6, 65, 9, 10", "8, 45, 5, 5", "3, 10, 70, 0"})
+    void parallelGenerationMatchesSerialWalk(int recurseDepth, int childRatio, int childCount, int bedlamLevel) {
+        FractalGenerator generator = generator(recurseDepth, childRatio, childCount, bedlamLevel, 7);
+        BubbleRecorder serial = new BubbleRecorder();
+        assertTrue(generator.walk(serial));
+
+        assertArrayEquals(serial.getBubbles(), record(generator.getData()));
+        assertEquals(FractalGeometry.nodeCount(recurseDepth, childCount), serial.getBubbleCount());
+    }
+
+    /**
+     * The geometry generated into a file as a subtree per fork/join task holds the same bubbles
+     *      as the geometry generated a level at a time
+     * @param directory where the geometry file is kept
+     */
+    @Test
+    void fileGenerationMatchesLevelGeneration(@TempDir Path directory) throws IOException {
+        for (int bedlamLevel : new int[] {0, 4}) {
+            FractalGenerator generator = generator(7, 60, 6, bedlamLevel, 11);
+            GeometryFile file = generator.getData(directory.resolve("bedlam" + bedlamLevel + ".geometry"));
+            assertArrayEquals(record(generator.getData()), record(file));
+        }
+    }
+
+    /**
+     * Two generators with the same settings and seed give the same bedlam bit for bit,
+     *      however they generate it, and a different seed gives different bedlam
+     */
+    @Test
+    void sameSeedGivesIdenticalBedlam() {
+        long[] first = record(generator(6, 65, 7, 6, 42).getData());
+        long[] second = record(generator(6, 65, 7, 6, 42).getData());
+        BubbleRecorder walked = new BubbleRecorder();
+        assertTrue(generator(6, 65, 7, 6, 42).walk(walked));
+
+        assertArrayEquals(first, second);
+        assertArrayEquals(first, walked.getBubbles());
+        assertFalse(Arrays.equals(first, record(generator(6, 65, 7, 6, 43).getData())));
+    }
+
+    /**
+     * Geometry made by extending or truncating cached levels holds the same bubbles
+     *      as geometry generated from scratch
+     */
+    @Test
+    void cachedLevelsMatchFreshGeneration() {
+        FractalGenerator generator = generator(5, 55, 6, 3, 5);
+        generator.getData();
+        generator.setParams(7, 55, 6, 3, COLOR, true);
+        long[] extended = record(generator.getData());
+        generator.setParams(4, 55, 6, 3, COLOR, true);
+        long[] truncated = record(generator.getData());
+
+        assertArrayEquals(record(generator(7, 55, 6, 3, 5).getData()), extended);
+        assertArrayEquals(record(generator(4, 55, 6, 3, 5).getData()), truncated);
+    }
+
+    /**
+     * A snapshot's geometry extended from the levels its truncated snapshots generated holds the same bubbles
+     *      as geometry generated from scratch, and so does a later, shallower snapshot cut from it
+     */
+    @Test
+    void truncatedLevelsMatchFreshGeneration() {
+        FractalGenerator generator = new FractalGenerator();
+        generator.setSeed(5);
+        FractalSnapshot[] snapshot = new FractalSnapshot[1];
+        generator.attach(update -> snapshot[0] = update);
+        generator.setParams(7, 55, 6, 3, COLOR, true);
+        for (int depth = 1; depth < 7; depth += 2) {
+            assertArrayEquals(record(generator(depth, 55, 6, 3, 5).getData()),
+                              record(snapshot[0].truncate(depth).getGeometry()));
+        }
+        assertArrayEquals(record(generator(7, 55, 6, 3, 5).getData()), record(snapshot[0].getGeometry()));
+
+        generator.setParams(5, 55, 6, 3, COLOR, true);
+        assertArrayEquals(record(generator(5, 55, 6, 3, 5).getData()), record(snapshot[0].getGeometry()));
+    }
+}
@@ -0,0 +1,142 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Contains tests for the span rasterizer: a fractal it draws in parallel bands is the same pixel for pixel
+ *      as one drawn a strip at a time on one thread, and stays within a small tolerance of the same fractal
+ *      drawn a bubble at a time through Java2D, the way bubbles were first drawn;
+ *      only shapes crossing the edge of the image, which Java2D clips by another path, are let differ much
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+class SpanRasterizerTest {
+
+    /** the width and height of every image drawn, in pixels */
+    private static final int SIZE = 600;
+    /** the number of rows and columns along each edge of the image left out of the interior */
+    private static final int EDGE = 3;
+    /** the most pixels of the whole image let differ from Java2D's, half a percent of it */
+    private static final int MAX_DIFFERING = SIZE * SIZE / 200;
+    /** the most pixels away from the edges let differ from Java2D's, a hundredth of a percent of the image */
+    private static final int MAX_INTERIOR_DIFFERING = SIZE * SIZE / 10000;
+    /** the rows of each strip drawn on its own, too few to be split into bands */
+    private static final int STRIP_ROWS = 15;
+
+    /**
+     * Generates a fractal
+     * @param recurseDepth  the number of times the fractal will recurse
+     * @param childRatio    the ratio of a child to its parent
+     * @param childCount    the number of children a parent will have
+     * @param bedlamLevel   the level of deviation of each bubble, random pastels shown if it is even
+     * @return  the geometry of the fractal
+     */
+    private static FractalGeometry geometry(int recurseDepth, int childRatio, int childCount, int bedlamLevel) {
+        FractalGenerator generator = new FractalGenerator();
+        generator.setSeed(3);
+        generator.setParams(recurseDepth, childRatio, childCount, bedlamLevel, new Color(30, 200, 90),
+                            bedlamLevel % 2 == 0);
+        return generator.getData();
+    }
+
+    /**
+     * Draws a fractal a bubble at a time through Java2D: each bubble's outline, its translucent fill,
+     *      then its arc, over a black background
+     * @param source    where the bubbles of the fractal drawn come from
+     * @return  the image drawn
+     */
+    private static BufferedImage reference(FractalSource source) {
+        BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.BLACK);
+            g.fillRect(0, 0, SIZE, SIZE);
+            source.walk((level, xCoord, yCoord, radius, color) -> {
+                int bubbleRadius = (int) radius;
+                int arcRadius = (int) (radius * FractalGeometry.ARC_RATIO);
+                int graphicsXCoord = SIZE / 2 + (int) xCoord;
+                int graphicsYCoord = SIZE / 2 - (int) yCoord;
+
+                g.setStroke(StyleTable.OUTLINE_STROKE);
+                g.setColor(color);
+                g.drawOval(graphicsXCoord - bubbleRadius, graphicsYCoord - bubbleRadius,
+                           bubbleRadius * 2, bubbleRadius * 2);
+                g.setColor(new Color(color.getRed() / 255f, color.getGreen() / 255f, color.getBlue() / 255f,
+                                     StyleTable.FILL_ALPHA));
+                g.fillOval(graphicsXCoord - bubbleRadius, graphicsYCoord - bubbleRadius,
+                           bubbleRadius * 2, bubbleRadius * 2);
+                g.setStroke(new BasicStroke(arcRadius / 10));
+                g.setColor(StyleTable.ARC_COLOR);
+                g.drawArc(graphicsXCoord - arcRadius, graphicsYCoord - arcRadius, arcRadius * 2, arcRadius * 2,
+                          StyleTable.ARC_START, StyleTable.ARC_EXTENT);
+                return true;
+            }, null, 0);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * The span rasterizer's image of a fractal differs from Java2D's in only a few pixels,
+     *      and almost none away from the edges of the image
+     */
+    @ParameterizedTest
+    @CsvSource({"2, 20, 1, 0", "5, 40, 4, 0", "6, 55, 6, 2", "7, 70, 5, 3",
+                "6, 70, 8, 0", "4, 70, 11, 0", "6, 50, 5, 0"})
+    void drawingMatchesJava2D(int recurseDepth, int childRatio, int childCount, int bedlamLevel) {
+        FractalGeometry geometry = geometry(recurseDepth, childRatio, childCount, bedlamLevel);
+
+        BufferedImage expected = reference(geometry);
+        BufferedImage actual = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+        assertTrue(new SpanRasterizer(new Dimension(SIZE, SIZE), 1).draw(geometry, actual, 0, SIZE, () -> false));
+
+        int differing = 0;
+        int interiorDiffering = 0;
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                if (expected.getRGB(x, y) != actual.getRGB(x, y)) {
+                    differing++;
+                    if (x >= EDGE && y >= EDGE && x < SIZE - EDGE && y < SIZE - EDGE) {
+                        interiorDiffering++;
+                    }
+                }
+            }
+        }
+        assertTrue(differing <= MAX_DIFFERING, differing + " pixels differ from Java2D's");
+        assertTrue(interiorDiffering <= MAX_INTERIOR_DIFFERING,
+                   interiorDiffering + " pixels away from the edges differ from Java2D's");
+    }
+
+    /**
+     * The whole image drawn in parallel bands is the same pixel for pixel as the image drawn
+     *      a strip at a time, each strip too short to be split and so drawn on one thread
+     */
+    @ParameterizedTest
+    @CsvSource({"5, 40, 4, 0", "6, 55, 6, 2", "7, 70, 5, 3", "6, 65, 9, 1"})
+    void parallelBandsMatchSerialStrips(int recurseDepth, int childRatio, int childCount, int bedlamLevel) {
+        FractalGeometry geometry = geometry(recurseDepth, childRatio, childCount, bedlamLevel);
+        SpanRasterizer rasterizer = new SpanRasterizer(new Dimension(SIZE, SIZE), 1);
+
+        BufferedImage whole = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+        assertTrue(rasterizer.draw(geometry, whole, 0, SIZE, () -> false));
+        int[] wholePixels = ((DataBufferInt) whole.getRaster().getDataBuffer()).getData();
+        for (int top = 0; top < SIZE; top += STRIP_ROWS) {
+            int rowCount = Math.min(STRIP_ROWS, SIZE - top);
+            BufferedImage strip = new BufferedImage(SIZE, rowCount, BufferedImage.TYPE_INT_RGB);
+            assertTrue(rasterizer.draw(geometry, strip, top, rowCount, () -> false));
+            assertArrayEquals(Arrays.copyOfRange(wholePixels, top * SIZE, (top + rowCount) * SIZE),
+                              ((DataBufferInt) strip.getRaster().getDataBuffer()).getData(),
+                              "rows from " + top);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Contains tests for the symmetric renderer: compared pixel for pixel with the fractal drawn bubble by bubble,
+ *      its stamped copies cover the same pixels, corners included, all but where turning a raster
+ *      moves a pixel by one, and quarter turns, which move none, give almost the same colors
+ * @author  Milo Bowles
+ * @version 6/15/2022
+ */
+class SymmetricRendererTest {
+
+    /** the dimensions of the panel drawn */
+    private static final Dimension SIZE = new Dimension(600, 600);
+
+    /**
+     * Draws a symmetric fractal both bubble by bubble and stamped from one sector
+     * @param recurseDepth  the number of times the fractal will recurse
+     * @param childRatio    the ratio of a child to its parent
+     * @param childCount    the number of children a parent will have
+     * @return  the fractal drawn bubble by bubble, then stamped
+     */
+    private static BufferedImage[] draw(int recurseDepth, int childRatio, int childCount) {
+        FractalGenerator generator = new FractalGenerator();
+        FractalSnapshot[] snapshot = new FractalSnapshot[1];
+        generator.attach(update -> snapshot[0] = update);
+        generator.setParams(recurseDepth, childRatio, childCount, 0, new Color(30, 200, 90), false);
+
+        BufferedImage plain = new BufferedImage(SIZE.width, SIZE.height, BufferedImage.TYPE_INT_RGB);
+        assertTrue(new SpanRasterizer(SIZE, 1).draw(snapshot[0].getGeometry(), plain, 0, SIZE.height,
+                                                    () -> false));
+        SymmetricRenderer renderer = new SymmetricRenderer(SIZE, 1);
+        assertTrue(renderer.canDraw(snapshot[0]));
+        BufferedImage stamped = new BufferedImage(SIZE.width, SIZE.height, BufferedImage.TYPE_INT_RGB);
+        assertTrue(renderer.draw(stamped, snapshot[0], () -> false));
+        return new BufferedImage[] {plain, stamped};
+    }
+
+    /**
+     * Every pixel the fractal drawn bubble by bubble covers, the stamped copies cover too, and no other,
+     *      but for a few turned a pixel off, two hundredths of the pixels covered at most
+     */
+    @ParameterizedTest
+    @CsvSource({"5, 40, 4", "6, 55, 6", "4, 70, 11", "7, 60, 3", "6, 50, 5", "5, 80, 2", "3, 90, 7"})
+    void stampedCopiesCoverTheSamePixels(int recurseDepth, int childRatio, int childCount) {
+        BufferedImage[] images = draw(recurseDepth, childRatio, childCount);
+        int covered = 0;
+        int missing = 0;
+        int extra = 0;
+        for (int y = 0; y < SIZE.height; y++) {
+            for (int x = 0; x < SIZE.width; x++) {
+                boolean plainCovers = (images[0].getRGB(x, y) & 0xFFFFFF) != 0;
+                boolean stampedCovers = (images[1].getRGB(x, y) & 0xFFFFFF) != 0;
+                if (plainCovers) {
+                    covered++;
+                }
+                if (plainCovers && !stampedCovers) {
+                    missing++;
+                } else if (stampedCovers && !plainCovers) {
+                    extra++;
+                }
+            }
+        }
+        assertTrue(missing <= covered / 50, missing + " of " + covered + " pixels are missing from the copies");
+        assertTrue(extra <= covered / 50, extra + " pixels are covered only by the copies");
+    }
+
+    /**
+     * Copies turned by quarter turns land on whole pixels, so only a hundredth of the pixels
+     *      are far from the colors drawn bubble by bubble
+     */
+    @ParameterizedTest
+    @CsvSource({"5, 40, 4", "5, 80, 2", "8, 45, 4"})
+    void quarterTurnsMatchClosely(int recurseDepth, int childRatio, int childCount) {
+        BufferedImage[] images = draw(recurseDepth, childRatio, childCount);
+        int far = 0;
+        for (int y = 0; y < SIZE.height; y++) {
+            for (int x = 0; x < SIZE.width; x++) {
+                int plain = images[0].getRGB(x, y);
+                int stamped = images[1].getRGB(x, y);
+                for (int shift = 0; shift < 24; shift += 8) {
+                    if (Math.abs((plain >> shift & 0xFF) - (stamped >> shift & 0xFF)) > 64) {
+                        far++;
+                        break;
+                    }
+                }
+            }
+        }
+        assertTrue(far <= SIZE.width * SIZE.height / 100, far + " pixels are far from the colors drawn");
+    }
+}